@@ -0,0 +1,39 @@
+package com.doctors.backend.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Ajusta las tablas de secuencia (*_seq) para que el siguiente id quede por sobre el mayor id existente. Cubre las
+ * tablas que antes usaban AUTO_INCREMENT y las filas insertadas por SQL fuera de Hibernate (semillas, backfills).
+ * Corre cuando ya estan creados todos los beans (el esquema ya fue actualizado) pero antes de que el servidor web
+ * acepte peticiones: si un registro llegara antes, Hibernate tomaria un bloque de ids desde next_val = 1 y chocaria
+ * con las filas existentes. La migracion de especialidades inserta filas, por eso se ejecuta antes aqui mismo.
+ * Si la secuencia ya esta adelante no la modifica.
+ */
+@Component
+public class IdSequenceBackfill implements SmartInitializingSingleton {
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "roles", "roles_seq",
+            "specialties", "specialties_seq",
+            "availability_rules", "availability_rules_seq");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SpecialtyBackfill specialtyBackfill;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        specialtyBackfill.migrate();
+        SEQUENCES.forEach((table, sequence) -> jdbcTemplate.update(
+                "update " + sequence + " set next_val = greatest(next_val, (select coalesce(max(id), 0) + 1 from " + table + "))"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.doctors.backend.config;
+
+import com.doctors.backend.repositories.MessageRepository;
+import com.doctors.backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inicializa el estado de lectura de los mensajes antiguos y el contador de no leidos de cada usuario.
+ * Solo toca filas que aun no tienen valor, por lo que despues de la primera ejecucion no hace nada.
+ */
+@Component
+public class MessageCounterBackfill implements ApplicationRunner {
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        messageRepository.backfillReadFlag();
+        userRepository.backfillUnreadMessages();
+    }
+}
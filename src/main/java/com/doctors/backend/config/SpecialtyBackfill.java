@@ -0,0 +1,30 @@
+package com.doctors.backend.config;
+
+import com.doctors.backend.repositories.SpecialtyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Migra la antigua columna de texto users.specialty a la llave foranea specialty_id: crea en el catalogo las
+ * especialidades que solo existian como texto y enlaza a cada usuario. La columna antigua no se borra, pero sus
+ * valores se vacian en la misma transaccion; asi la migracion corre una sola vez y un doctor al que despues se le
+ * quita la especialidad no vuelve a quedar enlazado al texto antiguo en el siguiente arranque. La invoca
+ * IdSequenceBackfill antes de ajustar las secuencias, porque inserta especialidades por SQL.
+ */
+@Component
+public class SpecialtyBackfill {
+
+    @Autowired
+    private SpecialtyRepository specialtyRepository;
+
+    @Transactional
+    public void migrate() {
+        if (specialtyRepository.countLegacySpecialtyColumn() == 0) {
+            return;
+        }
+        specialtyRepository.backfillFromLegacyColumn();
+        specialtyRepository.backfillUserSpecialties();
+        specialtyRepository.clearLegacySpecialties();
+    }
+}
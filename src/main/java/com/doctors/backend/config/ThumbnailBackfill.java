@@ -0,0 +1,29 @@
+package com.doctors.backend.config;
+
+import com.doctors.backend.services.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera las miniaturas de las imagenes ya existentes cuando la aplicacion se inicia con --backfill-thumbnails.
+ */
+@Component
+public class ThumbnailBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailBackfill.class);
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("backfill-thumbnails")) {
+            int submitted = thumbnailService.backfill();
+            log.info("Backfill de miniaturas: {} imagenes encoladas.", submitted);
+        }
+    }
+}
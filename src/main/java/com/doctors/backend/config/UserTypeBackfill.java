@@ -0,0 +1,28 @@
+package com.doctors.backend.config;
+
+import com.doctors.backend.entity.User;
+import com.doctors.backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Completa la columna user_type de los usuarios creados antes de que existiera, a partir de sus roles, y deja
+ * sin nulos el apellido, que forma parte del cursor del directorio.
+ */
+@Component
+public class UserTypeBackfill implements ApplicationRunner {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        userRepository.backfillUserType("ROLE_DOCTOR", User.TYPE_DOCTOR);
+        userRepository.backfillUserType("ROLE_PATIENT", User.TYPE_PATIENT);
+        userRepository.backfillNullLastnames();
+    }
+}
@@ -0,0 +1,157 @@
+package com.doctors.backend.config;
+
+import com.doctors.backend.security.AccessTokenValidator;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Canal STOMP para avisar a los doctores de mensajes nuevos. El token JWT se valida con las mismas reglas que
+ * en HTTP (AccessTokenValidator: firma, expiracion, revocacion y version) en el handshake, si trae cabecera
+ * Authorization, o en el frame CONNECT, que es donde lo envia el navegador porque WebSocket no admite cabeceras.
+ * El token no se acepta en la URL (?token=) para que no quede en logs de acceso ni proxies. Su subject se usa
+ * como usuario para /user/queue/messages. Las conexiones inactivas no ocupan hilos: Tomcat atiende WebSocket
+ * sobre NIO y el broker solo usa pools acotados.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String PRINCIPAL_ATTRIBUTE = "ws.principal";
+
+    @Autowired
+    private AccessTokenValidator accessTokenValidator;
+
+    @Lazy
+    @Autowired
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws")
+                .setAllowedOrigins("http://localhost:4200")
+                .addInterceptors(new JwtHandshakeInterceptor())
+                .setHandshakeHandler(new DefaultHandshakeHandler() {
+                    @Override
+                    protected Principal determineUser(ServerHttpRequest request,
+                                                      WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                        return (Principal) attributes.get(PRINCIPAL_ATTRIBUTE);
+                    }
+                });
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/queue")
+                .setHeartbeatValue(new long[]{25000, 25000})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(2).maxPoolSize(4).queueCapacity(1000);
+        registration.interceptors(new JwtConnectInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(2).maxPoolSize(4).queueCapacity(1000);
+    }
+
+    //Devuelve null si el token no es valido
+    private Principal authenticate(String token) {
+        try {
+            UserDetails user = accessTokenValidator.resolvePrincipal(token);
+            return user == null ? null : new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            if (request.getURI().getRawQuery() != null && request.getURI().getRawQuery().contains("token=")) {
+                response.setStatusCode(HttpStatus.BAD_REQUEST);
+                return false;
+            }
+
+            //Sin cabecera el handshake sigue y la autenticacion se exige en el frame CONNECT
+            String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return true;
+            }
+
+            Principal principal = authenticate(authHeader.substring(7));
+            if (principal == null) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            attributes.put(PRINCIPAL_ATTRIBUTE, principal);
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
+    }
+
+    private class JwtConnectInterceptor implements ChannelInterceptor {
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (accessor == null || accessor.getCommand() == null) {
+                return message;
+            }
+
+            if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+                String authHeader = accessor.getFirstNativeHeader(HttpHeaders.AUTHORIZATION);
+                if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                    Principal principal = authenticate(authHeader.substring(7));
+                    if (principal == null) {
+                        throw new MessagingException("Token inválido o revocado.");
+                    }
+                    accessor.setUser(principal);
+                }
+            }
+
+            //Ningun frame pasa sin un usuario autenticado, ya sea del handshake o del CONNECT
+            if (accessor.getUser() == null && !StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+                throw new MessagingException("Se requiere autenticación.");
+            }
+            return message;
+        }
+    }
+}
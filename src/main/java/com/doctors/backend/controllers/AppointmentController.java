@@ -0,0 +1,173 @@
+package com.doctors.backend.controllers;
+
+import com.doctors.backend.entity.Appointment;
+import com.doctors.backend.entity.AvailabilityRule;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.AppointmentRequest;
+import com.doctors.backend.models.FreeSlot;
+import com.doctors.backend.services.AppointmentService;
+import com.doctors.backend.services.DoctorService;
+import com.doctors.backend.services.SlotUnavailableException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "http://localhost:4200")
+public class AppointmentController {
+
+    private static final int MAX_FREE_SLOTS = 100;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    //Ej: /api/appointments/availability?specialtyId=3&to=2024-03-08T00:00:00&limit=10
+    @GetMapping("/appointments/availability")
+    public List<FreeSlot> getFreeSlots(@RequestParam(value = "specialtyId", required = false) Long specialtyId,
+                                       @RequestParam(value = "doctorId", required = false) Long doctorId,
+                                       @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                       @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return appointmentService.findFreeSlots(specialtyId, doctorId, from, to, Math.min(limit, MAX_FREE_SLOTS));
+    }
+
+    @PostMapping("/doctors/{id}/appointments")
+    public ResponseEntity<?> bookAppointment(@PathVariable Long id, @Valid @RequestBody AppointmentRequest request,
+                                             BindingResult result, Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+
+        if(result.hasErrors()){
+            List<String> errors = new ArrayList<>();
+            for(FieldError err: result.getFieldErrors()){
+                errors.add(err.getDefaultMessage());
+            }
+
+            response.put("errors", errors);
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
+        }
+
+        if (principal == null) {
+            response.put("message", "Debe iniciar sesión para reservar una hora.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        if (doctorService.findEmailById(id) == null) {
+            response.put("message", "El doctor no existe en la base de datos.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+        }
+
+        Appointment appointment = null;
+        try {
+            User patient = doctorService.findByEmail(principal.getName());
+            appointment = appointmentService.book(id, patient.getId(), request.getStartsAt(), request.getReason());
+        } catch (SlotUnavailableException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
+        }
+
+        response.put("message", "La hora se ha reservado con éxito.");
+        response.put("appointment", appointment);
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/appointments/{appointmentId}/cancel")
+    public ResponseEntity<?> cancelAppointment(@PathVariable Long appointmentId, Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (principal == null) {
+            response.put("message", "Usuario no autorizado.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        try {
+            User user = doctorService.findByEmail(principal.getName());
+            if (!appointmentService.cancel(appointmentId, user.getId())) {
+                response.put("message", "La reserva no existe o ya fue cancelada.");
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            response.put("error", "La reserva fue modificada por otra solicitud, intente nuevamente.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
+        }
+
+        response.put("message", "La reserva se ha cancelado con éxito.");
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+
+    @GetMapping("/doctors/{id}/appointments")
+    public ResponseEntity<?> getAppointments(@PathVariable Long id,
+                                             @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                             Principal principal) {
+        ResponseEntity<?> denied = checkDoctorOwner(id, principal);
+        if (denied != null) {
+            return denied;
+        }
+
+        LocalDateTime start = from == null ? LocalDateTime.now() : from;
+        return ResponseEntity.ok(appointmentService.getAppointments(id, start, to == null ? start.plusDays(7) : to));
+    }
+
+    @GetMapping("/doctors/{id}/availability")
+    public List<AvailabilityRule> getAvailability(@PathVariable Long id) {
+        return appointmentService.getAvailability(id);
+    }
+
+    @PutMapping("/doctors/{id}/availability")
+    public ResponseEntity<?> replaceAvailability(@PathVariable Long id, @RequestBody List<AvailabilityRule> rules, Principal principal) {
+        ResponseEntity<?> denied = checkDoctorOwner(id, principal);
+        if (denied != null) {
+            return denied;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("availability", appointmentService.replaceAvailability(id, rules));
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
+        }
+
+        response.put("message", "El horario de atención se ha actualizado con éxito.");
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> checkDoctorOwner(Long id, Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (principal == null) {
+            response.put("message", "Usuario no autorizado.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        String email = doctorService.findEmailById(id);
+        if (email == null) {
+            response.put("message", "El doctor no existe en la base de datos.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+        }
+
+        if (!email.equals(principal.getName())) {
+            response.put("message", "No tiene permiso para modificar esta agenda.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.FORBIDDEN);
+        }
+
+        return null;
+    }
+}
@@ -3,13 +3,20 @@ package com.doctors.backend.controllers;
 import com.doctors.backend.entity.User;
 import com.doctors.backend.models.AuthResponse;
 import com.doctors.backend.models.AuthenticationRequest;
+import com.doctors.backend.models.RefreshRequest;
 import com.doctors.backend.security.CustomUserDetailsService;
+import com.doctors.backend.security.LoginRateLimiter;
 import com.doctors.backend.services.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/auth")
@@ -22,11 +29,47 @@ public class AuthController {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody AuthenticationRequest request){
+    public ResponseEntity<?> login(@RequestBody AuthenticationRequest request, HttpServletRequest httpRequest){
+        //Rechazamos antes de tocar la base de datos o calcular BCrypt
+        if(!loginRateLimiter.tryAcquire(request.getEmail(), httpRequest.getRemoteAddr())){
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Demasiados intentos de inicio de sesión, intente nuevamente más tarde.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginRateLimiter.getWindowSeconds()))
+                    .body(response);
+        }
+
         return ResponseEntity.ok(authService.login(request));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request){
+        AuthResponse token = authService.refresh(request.getRefreshToken());
+
+        if(token == null){
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "La sesión ha expirado, inicie sesión nuevamente.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        return ResponseEntity.ok(token);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshRequest request,
+                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader){
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.logout(request.getRefreshToken(), accessToken);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Se ha cerrado la sesión con éxito.");
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+
     @GetMapping("/user_actual")
     public User getCurrentUser(Principal principal){
         return (User) userDetailsService.loadUserByUsername(principal.getName());
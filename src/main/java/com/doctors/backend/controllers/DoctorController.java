@@ -1,33 +1,52 @@
 package com.doctors.backend.controllers;
 
 import com.doctors.backend.entity.Message;
-import com.doctors.backend.entity.Specialty;
 import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DirectoryCursor;
+import com.doctors.backend.models.DirectorySlice;
+import com.doctors.backend.models.DoctorImportReport;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.models.InboxSlice;
+import com.doctors.backend.models.SpecialtyFacet;
+import com.doctors.backend.models.SpecialtySnapshot;
+import com.doctors.backend.security.HashingOverloadException;
+import com.doctors.backend.services.DoctorImportService;
+import com.doctors.backend.services.DoctorSearchService;
 import com.doctors.backend.services.DoctorService;
+import com.doctors.backend.services.EmailAlreadyRegisteredException;
+import com.doctors.backend.services.ImageService;
+import com.doctors.backend.services.MediaStore;
+import com.doctors.backend.services.MessageIngestionService;
 import com.doctors.backend.services.PatientService;
+import com.doctors.backend.services.ThumbnailService;
+import com.doctors.backend.services.UnsupportedImageException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.apache.coyote.Response;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -37,6 +56,24 @@ public class DoctorController {
     @Autowired
     private DoctorService doctorService;
 
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private MessageIngestionService messageIngestionService;
+
+    @Autowired
+    private DoctorSearchService searchService;
+
+    @Autowired
+    private DoctorImportService importService;
+
     @GetMapping("/doctors")
     public List<User> getDoctors() {
         return doctorService.getDoctors();
@@ -47,25 +84,53 @@ public class DoctorController {
         return doctorService.findAll(PageRequest.of(page, 9));
     }
 
+    @GetMapping("/doctors/directory")
+    public List<DoctorSummary> getDirectory() {
+        return doctorService.getDoctorSummaries();
+    }
+
+    @GetMapping("/doctors/directory/page/{page}")
+    public Slice<DoctorSummary> getDirectory(@PathVariable Integer page) {
+        return doctorService.getDoctorSummaries(PageRequest.of(page, 9));
+    }
+
+    @GetMapping("/doctors/directory/seek")
+    public DirectorySlice getDirectoryAfter(@RequestParam(value = "specialtyId", required = false) Long specialtyId,
+                                            @RequestParam(value = "lastname", required = false) String lastname,
+                                            @RequestParam(value = "id", required = false) Long id) {
+        DirectoryCursor cursor = id == null ? null : new DirectoryCursor(specialtyId, lastname == null ? "" : lastname, id);
+        return doctorService.getDoctorSummariesAfter(cursor, 9);
+    }
+
+    @GetMapping("/doctors/directory/specialty/{specialtyId}")
+    public DirectorySlice getDirectoryBySpecialty(@PathVariable Long specialtyId,
+                                                  @RequestParam(value = "lastname", required = false) String lastname,
+                                                  @RequestParam(value = "id", required = false) Long id) {
+        DirectoryCursor cursor = id == null ? null : new DirectoryCursor(specialtyId, lastname, id);
+        return doctorService.getDoctorSummariesBySpecialty(specialtyId, cursor, 9);
+    }
+
+    @GetMapping("/doctors/search")
+    public List<DoctorSummary> search(@RequestParam(value = "q") String query) {
+        return searchService.search(query, 20);
+    }
+
 
     @GetMapping("/doctors/{id}")
     public User getDoctor(@PathVariable Long id) {
         return doctorService.getDoctor(id);
     }
 
+    //Se consulta en cada tecla del formulario de registro: el filtro de emails responde sin ir a la base de datos
     @GetMapping("/doctors/email")
     public ResponseEntity<?> findDoctorByEmail(@RequestParam(value = "email") String email){
-        User doctor = doctorService.findByEmail(email);
-
         Map<String, Object> response = new HashMap<>();
 
-        if(doctor == null){
-            response.put("message", "Usuario no encontrado.");
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
-        }
-
         try{
-            doctorService.existsByEmail(doctor.getEmail());
+            if(!doctorService.existsByEmail(email)){
+                response.put("message", "Usuario no encontrado.");
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+            }
         }catch (Exception e){
             response.put("message", "Error al realizar la consulta.");
             response.put("error", e.getMessage());
@@ -90,13 +155,17 @@ public class DoctorController {
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
         }
 
-        if (doctorService.existsByEmail(doctor.getEmail())) {
-            response.put("error", "El email ya está en uso.");
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
-        }
-
         try {
             newDoctor = doctorService.registerDoctor(doctor);
+        } catch (EmailAlreadyRegisteredException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
+        } catch (HashingOverloadException e) {
+            response.put("message", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             response.put("message", "Error al realizar el insert en la base de datos.");
             response.put("error", e.getMessage());
@@ -108,6 +177,32 @@ public class DoctorController {
         return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CREATED);
     }
 
+    //Carga masiva: text/csv con encabezado (firstname,lastname,email,password,phone,sex,specialty) o application/x-ndjson.
+    //Responde con el detalle de las filas rechazadas; las filas validas se registran aunque otras fallen.
+    //Solo doctores (o administradores) pueden crear doctores; un paciente recibe 403
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_DOCTOR')")
+    @PostMapping(value = "/doctors/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importDoctors(HttpServletRequest request, Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (principal == null) {
+            response.put("message", "Usuario no autorizado.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        try {
+            MediaType contentType = MediaType.parseMediaType(request.getContentType());
+            DoctorImportReport report = "csv".equalsIgnoreCase(contentType.getSubtype())
+                    ? importService.importCsv(request.getInputStream())
+                    : importService.importNdjson(request.getInputStream());
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            response.put("message", "No se pudo leer el archivo.");
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping("/doctors/{id}")
     public ResponseEntity<?> update(@Valid @RequestBody User doctor, BindingResult result, @PathVariable Long id) {
         User currentDoctor = doctorService.getDoctor(id);
@@ -131,6 +226,12 @@ public class DoctorController {
 
         try {
             updatedDoctor = doctorService.updatedDoctor(doctor, id);
+        } catch (EmailAlreadyRegisteredException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             response.put("message", "Error al realizar la actualizacion en la base de datos.");
             response.put("error", e.getMessage());
@@ -146,8 +247,40 @@ public class DoctorController {
     //specialties
 
     @GetMapping("/doctors/specialties")
-    public List<Specialty> findAllSpecialties() {
-        return doctorService.findAllSpecialties();
+    public ResponseEntity<byte[]> findAllSpecialties(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SpecialtySnapshot snapshot = doctorService.getSpecialtySnapshot();
+        CacheControl cacheControl = CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic();
+
+        if (matchesEtag(ifNoneMatch, snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    @GetMapping("/doctors/specialties/facets")
+    public List<SpecialtyFacet> getSpecialtyFacets() {
+        return doctorService.getSpecialtyFacets();
+    }
+
+    private boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     //upload image
@@ -157,31 +290,34 @@ public class DoctorController {
         User doctor = doctorService.getDoctor(id);
 
         if (!image.isEmpty()) {
-            String imageName = UUID.randomUUID().toString() + "_" + image.getOriginalFilename().replace(" ", "");
-            Path imagePath = Paths.get("uploads").resolve(imageName).toAbsolutePath();
+            String imageName = null;
 
             try {
-                Files.copy(image.getInputStream(), imagePath);
+                imageName = mediaStore.store(image);
+            } catch (UnsupportedImageException e) {
+                response.put("message", e.getMessage());
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
             } catch (IOException e) {
                 response.put("message", "Error al subir la imagen.");
-                response.put("error", e.getMessage().concat(": ").concat(e.getCause().getMessage()));
+                response.put("error", e.getMessage());
                 return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
             }
 
-            //Validar si el cliente ya tiene una foto o no, si ya existe, eliminamos la foto anterior y actualizamos por la nueva
+            //Si el doctor ya tenia una foto liberamos la referencia; el archivo solo se borra si nadie mas lo usa
             String namePreviousImage = doctor.getPhoto();
 
-            if (namePreviousImage != null && namePreviousImage.length() > 0) {
-                Path previousImageRoute = Paths.get("uploads").resolve(namePreviousImage).toAbsolutePath();
-                File previousImageFile = previousImageRoute.toFile();
-
-                if (previousImageFile.exists() && previousImageFile.canRead()) {
-                    previousImageFile.delete();
-                }
-            }
-
             doctor.setPhoto(imageName);
-            doctorService.updatedDoctor(doctor, id);
+            try {
+                doctorService.updatedDoctor(doctor, id);
+            } catch (RuntimeException e) {
+                mediaStore.discard(imageName);
+                response.put("message", "Error al actualizar la imagen en la base de datos.");
+                response.put("error", e.getMessage());
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            mediaStore.retain(imageName);
+            mediaStore.release(namePreviousImage);
+            thumbnailService.generateAsync(imageName);
 
             response.put("message", "Se ha actualizado la imagen con éxito.");
             response.put("doctor", doctor);
@@ -191,36 +327,13 @@ public class DoctorController {
     }
 
     @GetMapping("/doctors/uploads/img/{imageName:.+}")
-    public ResponseEntity<Resource> viewImage(@PathVariable String imageName) {
-
-        Path filePath = Paths.get("uploads").resolve(imageName).toAbsolutePath();
-        Resource recurso = null;
-
-        try {
-            recurso = new UrlResource(filePath.toUri());
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-
-        if (!recurso.exists() && !recurso.isReadable()) {
-            filePath = Paths.get("src/main/resources/static/images").resolve("user_icon.png").toAbsolutePath();
-
-            try {
-                recurso = new UrlResource(filePath.toUri());
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
-        }
-
-        HttpHeaders header = new HttpHeaders();
-        header.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + recurso.getFilename() + "\"");
-
-        return new ResponseEntity<Resource>(recurso, header, HttpStatus.OK);
+    public void viewImage(@PathVariable String imageName, @RequestParam(value = "size", required = false) Integer size,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageService.serve(imageName, size, "user_icon.png", request, response);
     }
 
     @PostMapping("/doctors/{user_id}")
     public ResponseEntity<?> saveMessage(@Valid @RequestBody Message message, BindingResult result, @PathVariable Long user_id) {
-        User user = doctorService.getDoctor(user_id);
         Map<String, Object> response = new HashMap<>();
 
         if (result.hasErrors()) {
@@ -233,15 +346,81 @@ public class DoctorController {
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
         }
 
-        try {
-            doctorService.saveMessage(message, user);
-        } catch (Exception e) {
-            response.put("message", "Error al guardar el mensaje.");
-            response.put("error", e.getMessage());
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        String doctorEmail = doctorService.findEmailById(user_id);
+        if (doctorEmail == null) {
+            response.put("message", "El doctor no existe en la base de datos.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
         }
 
-        response.put("message", "El mensaje se ha guardado con éxito.");
-        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CREATED);
+        //El mensaje se guarda en segundo plano; si la cola esta llena pedimos al cliente que reintente
+        if (!messageIngestionService.enqueue(message, user_id, doctorEmail)) {
+            response.put("message", "El servicio está ocupado, intente nuevamente en unos momentos.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        response.put("message", "El mensaje se ha recibido con éxito.");
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/doctors/{id}/messages")
+    public ResponseEntity<?> getInbox(@PathVariable Long id,
+                                      @RequestParam(value = "reason", required = false) String reason,
+                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(value = "beforeCreatedAt", required = false) Long beforeCreatedAt,
+                                      @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                      Principal principal) {
+        ResponseEntity<?> denied = checkInboxOwner(id, principal);
+        if (denied != null) {
+            return denied;
+        }
+
+        InboxSlice inbox = doctorService.getInbox(id, reason, toDate(from), toDate(to == null ? null : to.plusDays(1)),
+                beforeCreatedAt == null ? null : new Date(beforeCreatedAt), beforeId, 20);
+        return ResponseEntity.ok(inbox);
+    }
+
+    @PutMapping("/doctors/{id}/messages/{messageId}/read")
+    public ResponseEntity<?> markMessageRead(@PathVariable Long id, @PathVariable Long messageId, Principal principal) {
+        ResponseEntity<?> denied = checkInboxOwner(id, principal);
+        if (denied != null) {
+            return denied;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        if (!doctorService.markMessageRead(id, messageId)) {
+            response.put("message", "El mensaje no existe o ya fue leído.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+        }
+
+        response.put("message", "El mensaje se ha marcado como leído.");
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+
+    //Solo el propio doctor puede leer su bandeja de entrada
+    private ResponseEntity<?> checkInboxOwner(Long id, Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (principal == null) {
+            response.put("message", "Usuario no autorizado.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNAUTHORIZED);
+        }
+
+        String email = doctorService.findEmailById(id);
+        if (email == null) {
+            response.put("message", "El doctor no existe en la base de datos.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.NOT_FOUND);
+        }
+
+        if (!email.equals(principal.getName())) {
+            response.put("message", "No tiene permiso para ver estos mensajes.");
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.FORBIDDEN);
+        }
+
+        return null;
+    }
+
+    private Date toDate(LocalDate date) {
+        return date == null ? null : Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
     }
-}
\ No newline at end of file
+}
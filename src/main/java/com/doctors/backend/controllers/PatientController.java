@@ -1,13 +1,18 @@
 package com.doctors.backend.controllers;
 
 import com.doctors.backend.entity.User;
+import com.doctors.backend.security.HashingOverloadException;
+import com.doctors.backend.services.EmailAlreadyRegisteredException;
+import com.doctors.backend.services.ImageService;
+import com.doctors.backend.services.MediaStore;
 import com.doctors.backend.services.PatientService;
+import com.doctors.backend.services.ThumbnailService;
+import com.doctors.backend.services.UnsupportedImageException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.apache.coyote.Response;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -15,12 +20,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
 
 @RestController
@@ -31,6 +31,15 @@ public class PatientController {
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
     @GetMapping("/patient/{user_id}")
     public User getUser(@PathVariable Long user_id){
         return patientService.getUser(user_id);
@@ -51,13 +60,14 @@ public class PatientController {
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.BAD_REQUEST);
         }
 
-        if(patientService.existsByEmail(patient.getEmail())){
-            response.put("error", "El email ya está en uso.");
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-
         try{
             newPatient = patientService.registerPatient(patient);
+        }catch (EmailAlreadyRegisteredException e){
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
+        }catch (HashingOverloadException e){
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.SERVICE_UNAVAILABLE);
         }catch (Exception e){
             response.put("error", "Error al realizar el registro del paciente.");
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -91,6 +101,9 @@ public class PatientController {
 
         try{
             updatedUser = patientService.updateUser(user, user_id);
+        }catch (EmailAlreadyRegisteredException e){
+            response.put("error", e.getMessage());
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CONFLICT);
         }catch (Exception e){
             response.put("message", "Error al actualizar al usuario en la base de datos.");
             response.put("error", e.getMessage());
@@ -108,31 +121,34 @@ public class PatientController {
         User patient = patientService.getUser(id);
 
         if (!image.isEmpty()) {
-            String imageName = UUID.randomUUID().toString() + "_" + image.getOriginalFilename().replace(" ", "");
-            Path imagePath = Paths.get("uploads").resolve(imageName).toAbsolutePath();
+            String imageName = null;
 
             try {
-                Files.copy(image.getInputStream(), imagePath);
+                imageName = mediaStore.store(image);
+            } catch (UnsupportedImageException e) {
+                response.put("message", e.getMessage());
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
             } catch (IOException e) {
                 response.put("message", "Error al subir la imagen.");
-                response.put("error", e.getMessage().concat(": ").concat(e.getCause().getMessage()));
+                response.put("error", e.getMessage());
                 return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
             }
 
-            //Validar si el cliente ya tiene una foto o no, si ya existe, eliminamos la foto anterior y actualizamos por la nueva
+            //Si el paciente ya tenia una foto liberamos la referencia; el archivo solo se borra si nadie mas lo usa
             String namePreviousImage = patient.getPhoto();
 
-            if (namePreviousImage != null && namePreviousImage.length() > 0) {
-                Path previousImageRoute = Paths.get("uploads").resolve(namePreviousImage).toAbsolutePath();
-                File previousImageFile = previousImageRoute.toFile();
-
-                if (previousImageFile.exists() && previousImageFile.canRead()) {
-                    previousImageFile.delete();
-                }
-            }
-
             patient.setPhoto(imageName);
-            patientService.updateUser(patient, id);
+            try {
+                patientService.updateUser(patient, id);
+            } catch (RuntimeException e) {
+                mediaStore.discard(imageName);
+                response.put("message", "Error al actualizar la imagen en la base de datos.");
+                response.put("error", e.getMessage());
+                return new ResponseEntity<Map<String, Object>>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            mediaStore.retain(imageName);
+            mediaStore.release(namePreviousImage);
+            thumbnailService.generateAsync(imageName);
 
             response.put("message", "Se ha actualizado la imagen con éxito.");
             response.put("patient", patient);
@@ -142,31 +158,9 @@ public class PatientController {
     }
 
     @GetMapping("/patient/uploads/img/{imageName:.+}")
-    public ResponseEntity<Resource> viewImage(@PathVariable String imageName) {
-
-        Path filePath = Paths.get("uploads").resolve(imageName).toAbsolutePath();
-        Resource recurso = null;
-
-        try {
-            recurso = new UrlResource(filePath.toUri());
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-
-        if (!recurso.exists() && !recurso.isReadable()) {
-            filePath = Paths.get("src/main/resources/static/images").resolve("user-icon.png").toAbsolutePath();
-
-            try {
-                recurso = new UrlResource(filePath.toUri());
-            } catch (MalformedURLException e) {
-                e.printStackTrace();
-            }
-        }
-
-        HttpHeaders header = new HttpHeaders();
-        header.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + recurso.getFilename() + "\"");
-
-        return new ResponseEntity<Resource>(recurso, header, HttpStatus.OK);
+    public void viewImage(@PathVariable String imageName, @RequestParam(value = "size", required = false) Integer size,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageService.serve(imageName, size, "user-icon.png", request, response);
     }
 
     @DeleteMapping("/doctors/{id}")
@@ -178,16 +172,9 @@ public class PatientController {
 
             if(patient != null){
                 String previousNamePhoto = patient.getPhoto();
-                if(previousNamePhoto != null && previousNamePhoto.length() > 0){
-                    Path previousPhotoRoute = Paths.get("uploads").resolve(previousNamePhoto).toAbsolutePath();
-                    File previousPhotoFile = previousPhotoRoute.toFile();
-
-                    if(previousPhotoFile.exists() && previousPhotoFile.canRead()){
-                        previousPhotoFile.delete();
-                    }
-                }
 
                 patientService.deletePatient(id);
+                mediaStore.release(previousNamePhoto);
                 response.put("message", "Se ha eliminado al paciente con éxito.");
                 return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
             }
@@ -0,0 +1,159 @@
+package com.doctors.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Reserva de un bloque de la agenda de un doctor. La clave unica (doctor_id, starts_at) impide la doble
+ * reserva en la base de datos; una hora cancelada se reutiliza al volver a reservarla, protegida por la version.
+ */
+@Entity
+@Table(name = "appointments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_appointments_doctor_slot", columnNames = {"doctor_id", "starts_at"}),
+        indexes = {
+                @Index(name = "idx_appointments_starts_at", columnList = "starts_at, status"),
+                @Index(name = "idx_appointments_patient", columnList = "patient_id, starts_at")
+        })
+public class Appointment {
+
+    public static final String STATUS_BOOKED = "BOOKED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_id", updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User doctor;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private User patient;
+
+    @Column(name = "starts_at", nullable = false, updatable = false)
+    private LocalDateTime startsAt;
+
+    @Column(name = "ends_at", nullable = false)
+    private LocalDateTime endsAt;
+
+    private String reason;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Version
+    private Long version;
+
+    @Column(updatable = false)
+    private Date createdAt;
+
+    private Date updatedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(User doctor) {
+        this.doctor = doctor;
+    }
+
+    public Long getDoctorId() {
+        return doctor == null ? null : doctor.getId();
+    }
+
+    public User getPatient() {
+        return patient;
+    }
+
+    public void setPatient(User patient) {
+        this.patient = patient;
+    }
+
+    public Long getPatientId() {
+        return patient == null ? null : patient.getId();
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(LocalDateTime endsAt) {
+        this.endsAt = endsAt;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    protected void onCreate(){
+        this.createdAt = new Date();
+    }
+
+    @PreUpdate
+    protected void onUpdate(){
+        this.updatedAt = new Date();
+    }
+}
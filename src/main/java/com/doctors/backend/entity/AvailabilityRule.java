@@ -0,0 +1,85 @@
+package com.doctors.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalTime;
+
+/**
+ * Bloque semanal de atencion de un doctor (por ejemplo, lunes de 09:00 a 13:00).
+ * El dia sigue la convencion ISO: 1 es lunes y 7 es domingo.
+ */
+@Entity
+@Table(name = "availability_rules", indexes = @Index(name = "idx_availability_rules_doctor", columnList = "doctor_id"))
+public class AvailabilityRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "availability_rules_seq")
+    @SequenceGenerator(name = "availability_rules_seq", sequenceName = "availability_rules_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull(message = "El día es obligatorio.")
+    @Min(value = 1, message = "El día debe estar entre 1 (lunes) y 7 (domingo).")
+    @Max(value = 7, message = "El día debe estar entre 1 (lunes) y 7 (domingo).")
+    @Column(name = "day_of_week", nullable = false)
+    private Integer dayOfWeek;
+
+    @NotNull(message = "La hora de inicio es obligatoria.")
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @NotNull(message = "La hora de término es obligatoria.")
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User doctor;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(Integer dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public User getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(User doctor) {
+        this.doctor = doctor;
+    }
+}
@@ -1,19 +1,35 @@
 package com.doctors.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import jakarta.persistence.*;
-
-import java.util.List;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "specialties")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size = 50)
+@Table(name = "specialties", indexes = @Index(name = "idx_specialties_name", columnList = "name"))
 public class Specialty {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "specialties_seq")
+    @SequenceGenerator(name = "specialties_seq", sequenceName = "specialties_seq", allocationSize = 50)
     private Long id;
 
     private String name;
 
+    public Specialty() {}
+
+    //Los clientes pueden seguir enviando la especialidad como texto ("Cardiología") ademas de {"id": 1}
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Specialty fromName(String name) {
+        Specialty specialty = new Specialty();
+        specialty.setName(name);
+        return specialty;
+    }
+
     public Long getId() {
         return id;
     }
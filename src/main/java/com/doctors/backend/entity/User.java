@@ -1,10 +1,16 @@
 package com.doctors.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,11 +20,22 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"), indexes = {
+        @Index(name = "idx_users_user_type", columnList = "user_type"),
+        @Index(name = "idx_users_directory", columnList = "user_type, specialty_id, lastname, id")
+})
 public class User implements UserDetails {
 
+    public static final String TYPE_DOCTOR = "DOCTOR";
+    public static final String TYPE_PATIENT = "PATIENT";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     public User(){}
@@ -29,10 +46,12 @@ public class User implements UserDetails {
 
     @NotBlank(message = "El apellido es obligatorio.")
     @Size(min = 4, max = 30, message = "El apellido debe contener entre 4 a 30 caracteres.")
+    @Column(nullable = false)
     private String lastname;
 
     @Email(message = "El email es inválido.")
     @NotBlank(message = "El email es obligatorio.")
+    @NaturalId(mutable = true)
     private String email;
 
     private String photo;
@@ -43,14 +62,35 @@ public class User implements UserDetails {
 
     private String sex;
 
-    private String specialty;
+    //Copia desnormalizada del rol para poder paginar doctores sin hacer join con user_roles
+    @JsonIgnore
+    @Column(name = "user_type", length = 16)
+    private String userType;
 
-    /*@ManyToOne(fetch = FetchType.EAGER)
+    //La columna de texto specialty queda solo como respaldo; SpecialtyBackfill la migra a specialty_id
+    @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "specialty_id")
-    @JsonIgnoreProperties("users")
-    private Specialty specialty;**/
+    private Specialty specialty;
+
+    //La misma columna como valor, solo para consultas: ordenar y comparar por users.specialty_id deja que MySQL
+    //recorra idx_users_directory, mientras que s.id del join lo obliga a ordenar en memoria. No tiene getter porque
+    //no refleja un setSpecialty hasta recargar la entidad
+    @Column(name = "specialty_id", insertable = false, updatable = false)
+    private Long specialtyId;
+
+    //Contador mantenido de mensajes no leidos, para no hacer COUNT(*) sobre messages. Este y token_version se
+    //escriben por JDBC (ver UserRepositoryImpl); en la entidad cacheada pueden estar desactualizados
+    @JsonIgnore
+    @Column(name = "unread_messages", insertable = false, updatable = false)
+    private Integer unreadMessages;
+
+    @JsonIgnore
+    @Column(name = "token_version", insertable = false, updatable = false)
+    private Integer tokenVersion;
 
     @JsonIgnoreProperties("users")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @BatchSize(size = 50)
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "user_roles",
@@ -160,20 +200,36 @@ public class User implements UserDetails {
         this.password = password;
     }
 
-    /*public Specialty getSpecialty() {
+    public Specialty getSpecialty() {
         return specialty;
     }
 
     public void setSpecialty(Specialty specialty) {
         this.specialty = specialty;
-    }**/
+    }
 
-    public String getSpecialty() {
-        return specialty;
+    public String getUserType() {
+        return userType;
     }
 
-    public void setSpecialty(String specialty) {
-        this.specialty = specialty;
+    public void setUserType(String userType) {
+        this.userType = userType;
+    }
+
+    public Integer getUnreadMessages() {
+        return unreadMessages;
+    }
+
+    public void setUnreadMessages(Integer unreadMessages) {
+        this.unreadMessages = unreadMessages;
+    }
+
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
     }
 
     public List<Role> getRoles() {
@@ -0,0 +1,29 @@
+package com.doctors.backend.models;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public class AppointmentRequest {
+
+    @NotNull(message = "La hora de la reserva es obligatoria.")
+    private LocalDateTime startsAt;
+
+    private String reason;
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -3,6 +3,7 @@ package com.doctors.backend.models;
 public class AuthResponse {
 
     private String token;
+    private String refreshToken;
 
     public String getToken() {
         return token;
@@ -11,4 +12,12 @@ public class AuthResponse {
     public void setToken(String token) {
         this.token = token;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
@@ -0,0 +1,22 @@
+package com.doctors.backend.models;
+
+import java.time.LocalDateTime;
+
+public class BookedSlot {
+
+    private Long doctorId;
+    private LocalDateTime startsAt;
+
+    public BookedSlot(Long doctorId, LocalDateTime startsAt) {
+        this.doctorId = doctorId;
+        this.startsAt = startsAt;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.doctors.backend.models;
+
+public class DirectoryCursor {
+
+    private Long specialtyId;
+    private String lastname;
+    private Long id;
+
+    public DirectoryCursor(Long specialtyId, String lastname, Long id) {
+        this.specialtyId = specialtyId;
+        this.lastname = lastname;
+        this.id = id;
+    }
+
+    public Long getSpecialtyId() {
+        return specialtyId;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,28 @@
+package com.doctors.backend.models;
+
+import java.util.List;
+
+public class DirectorySlice {
+
+    private List<DoctorSummary> content;
+    private boolean hasNext;
+    private DirectoryCursor next;
+
+    public DirectorySlice(List<DoctorSummary> content, boolean hasNext, DirectoryCursor next) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.next = next;
+    }
+
+    public List<DoctorSummary> getContent() {
+        return content;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public DirectoryCursor getNext() {
+        return next;
+    }
+}
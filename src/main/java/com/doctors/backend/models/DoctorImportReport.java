@@ -0,0 +1,39 @@
+package com.doctors.backend.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DoctorImportReport {
+
+    private int rows;
+    private int imported;
+    private final List<ImportRowError> errors = new ArrayList<>();
+
+    public void addRow() {
+        rows++;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addError(int row, String email, List<String> messages) {
+        errors.add(new ImportRowError(row, email, messages));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getFailed() {
+        return errors.size();
+    }
+
+    public List<ImportRowError> getErrors() {
+        return errors;
+    }
+}
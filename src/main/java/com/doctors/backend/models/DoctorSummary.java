@@ -0,0 +1,50 @@
+package com.doctors.backend.models;
+
+public class DoctorSummary {
+
+    private Long id;
+    private String firstname;
+    private String lastname;
+    private Long specialtyId;
+    private String specialty;
+    private String photo;
+    private String phone;
+
+    public DoctorSummary(Long id, String firstname, String lastname, Long specialtyId, String specialty, String photo, String phone) {
+        this.id = id;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.specialtyId = specialtyId;
+        this.specialty = specialty;
+        this.photo = photo;
+        this.phone = phone;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public Long getSpecialtyId() {
+        return specialtyId;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public String getPhoto() {
+        return photo;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+}
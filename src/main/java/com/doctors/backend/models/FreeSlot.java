@@ -0,0 +1,28 @@
+package com.doctors.backend.models;
+
+import java.time.LocalDateTime;
+
+public class FreeSlot {
+
+    private Long doctorId;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+
+    public FreeSlot(Long doctorId, LocalDateTime startsAt, LocalDateTime endsAt) {
+        this.doctorId = doctorId;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public LocalDateTime getEndsAt() {
+        return endsAt;
+    }
+}
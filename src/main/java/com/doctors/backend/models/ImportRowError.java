@@ -0,0 +1,28 @@
+package com.doctors.backend.models;
+
+import java.util.List;
+
+public class ImportRowError {
+
+    private int row;
+    private String email;
+    private List<String> errors;
+
+    public ImportRowError(int row, String email, List<String> errors) {
+        this.row = row;
+        this.email = email;
+        this.errors = errors;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
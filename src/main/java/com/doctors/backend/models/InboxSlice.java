@@ -0,0 +1,42 @@
+package com.doctors.backend.models;
+
+import com.doctors.backend.entity.Message;
+
+import java.util.List;
+
+public class InboxSlice {
+
+    private List<Message> content;
+    private boolean hasNext;
+    private Long nextCreatedAt;
+    private Long nextId;
+    private int unread;
+
+    public InboxSlice(List<Message> content, boolean hasNext, Long nextCreatedAt, Long nextId, int unread) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCreatedAt = nextCreatedAt;
+        this.nextId = nextId;
+        this.unread = unread;
+    }
+
+    public List<Message> getContent() {
+        return content;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public Long getNextCreatedAt() {
+        return nextCreatedAt;
+    }
+
+    public Long getNextId() {
+        return nextId;
+    }
+
+    public int getUnread() {
+        return unread;
+    }
+}
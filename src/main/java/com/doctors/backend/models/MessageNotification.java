@@ -0,0 +1,34 @@
+package com.doctors.backend.models;
+
+import java.util.Date;
+
+public class MessageNotification {
+
+    private String firstname;
+    private String lastname;
+    private String reason;
+    private Date createdAt;
+
+    public MessageNotification(String firstname, String lastname, String reason, Date createdAt) {
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.reason = reason;
+        this.createdAt = createdAt;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.doctors.backend.models;
+
+public class SpecialtyFacet {
+
+    private Long id;
+    private String name;
+    private int doctors;
+
+    public SpecialtyFacet(Long id, String name, int doctors) {
+        this.id = id;
+        this.name = name;
+        this.doctors = doctors;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDoctors() {
+        return doctors;
+    }
+}
@@ -0,0 +1,33 @@
+package com.doctors.backend.models;
+
+import com.doctors.backend.entity.Specialty;
+
+import java.util.List;
+
+/**
+ * Copia inmutable del catalogo de especialidades con su JSON ya serializado y su ETag.
+ */
+public class SpecialtySnapshot {
+
+    private final List<Specialty> specialties;
+    private final byte[] json;
+    private final String etag;
+
+    public SpecialtySnapshot(List<Specialty> specialties, byte[] json, String etag) {
+        this.specialties = List.copyOf(specialties);
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public List<Specialty> getSpecialties() {
+        return specialties;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -0,0 +1,28 @@
+package com.doctors.backend.repositories;
+
+import com.doctors.backend.entity.Appointment;
+import com.doctors.backend.models.BookedSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+
+    @Query("select a from Appointment a where a.doctor.id = :doctorId and a.startsAt = :startsAt")
+    Appointment findByDoctorAndStartsAt(@Param("doctorId") Long doctorId, @Param("startsAt") LocalDateTime startsAt);
+
+    @Query("select a from Appointment a where a.doctor.id = :doctorId and a.status = 'BOOKED' " +
+            "and a.startsAt >= :from and a.startsAt < :to order by a.startsAt")
+    List<Appointment> findBooked(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to);
+
+    //Solo los ids y horas, para poblar el indice de agenda sin cargar entidades
+    @Query("select new com.doctors.backend.models.BookedSlot(a.doctor.id, a.startsAt) from Appointment a " +
+            "where a.status = 'BOOKED' and a.startsAt >= :from and a.startsAt < :to")
+    List<BookedSlot> findBookedSlots(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
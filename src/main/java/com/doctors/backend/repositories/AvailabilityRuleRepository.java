@@ -0,0 +1,20 @@
+package com.doctors.backend.repositories;
+
+import com.doctors.backend.entity.AvailabilityRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AvailabilityRuleRepository extends JpaRepository<AvailabilityRule, Long> {
+
+    List<AvailabilityRule> findByDoctorIdOrderByDayOfWeekAscStartTimeAsc(Long doctorId);
+
+    @Modifying
+    @Query("delete from AvailabilityRule r where r.doctor.id = :doctorId")
+    int deleteByDoctor(@Param("doctorId") Long doctorId);
+}
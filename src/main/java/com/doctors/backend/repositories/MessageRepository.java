@@ -1,9 +1,36 @@
 package com.doctors.backend.repositories;
 
 import com.doctors.backend.entity.Message;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
+
+    @Query("select m from Message m where m.user.id = :userId " +
+            "and (:reason is null or m.reason = :reason) " +
+            "and (:from is null or m.createdAt >= :from) " +
+            "and (:to is null or m.createdAt < :to) " +
+            "and (:beforeCreatedAt is null or m.createdAt < :beforeCreatedAt " +
+            "or (m.createdAt = :beforeCreatedAt and m.id < :beforeId)) " +
+            "order by m.createdAt desc, m.id desc")
+    Slice<Message> findInbox(@Param("userId") Long userId, @Param("reason") String reason,
+                             @Param("from") Date from, @Param("to") Date to,
+                             @Param("beforeCreatedAt") Date beforeCreatedAt, @Param("beforeId") Long beforeId,
+                             Pageable pageable);
+
+    @Modifying
+    @Query("update Message m set m.read = true where m.id = :id and m.user.id = :userId and m.read = false")
+    int markRead(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "update messages set is_read = false where is_read is null", nativeQuery = true)
+    int backfillReadFlag();
 }
@@ -1,9 +1,37 @@
 package com.doctors.backend.repositories;
 
 import com.doctors.backend.entity.Specialty;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface SpecialtyRepository extends JpaRepository<Specialty, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Specialty findFirstByName(String name);
+
+    @Query(value = "select count(*) from information_schema.columns " +
+            "where table_schema = database() and table_name = 'users' and column_name = 'specialty'", nativeQuery = true)
+    int countLegacySpecialtyColumn();
+
+    @Modifying
+    @Query(value = "insert into specialties (name) select distinct trim(u.specialty) from users u " +
+            "where u.specialty is not null and trim(u.specialty) <> '' " +
+            "and not exists (select 1 from specialties s where s.name = trim(u.specialty))", nativeQuery = true)
+    int backfillFromLegacyColumn();
+
+    @Modifying
+    @Query(value = "update users u join specialties s on s.name = trim(u.specialty) " +
+            "set u.specialty_id = s.id where u.specialty_id is null and u.specialty is not null", nativeQuery = true)
+    int backfillUserSpecialties();
+
+    //Marca la migracion como hecha: sin texto antiguo las siguientes ejecuciones no vuelven a enlazar nada
+    @Modifying
+    @Query(value = "update users set specialty = null where specialty is not null", nativeQuery = true)
+    int clearLegacySpecialties();
 }
@@ -1,12 +1,105 @@
 package com.doctors.backend.repositories;
 
 import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     User findByEmail(String email);
     Boolean existsByEmail(String email);
+
+    //Los listados filtran por user_type (idx_users_user_type / idx_users_directory) en vez de hacer join con
+    //user_roles y roles por ROLE_DOCTOR: el rol define el tipo al registrar y el join no sirve para paginar por indice
+    @EntityGraph(attributePaths = {"roles", "specialty"})
+    List<User> findByUserType(String userType);
+
+    //Solo se hace join de la especialidad (a uno); los roles se cargan por lotes para no paginar en memoria
+    @EntityGraph(attributePaths = "specialty")
+    Page<User> findByUserType(String userType, Pageable pageable);
+
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u left join u.specialty s where u.userType = 'DOCTOR'")
+    List<DoctorSummary> findDoctorSummaries();
+
+    //Orden total (id desempata) para que las paginas por offset no repitan ni salten doctores; es el mismo orden del
+    //directorio por cursor y lo entrega idx_users_directory
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u left join u.specialty s where u.userType = 'DOCTOR' order by u.specialtyId, u.lastname, u.id")
+    Slice<DoctorSummary> findDoctorSummaries(Pageable pageable);
+
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u left join u.specialty s " +
+            "where u.userType = 'DOCTOR' order by u.specialtyId, u.lastname, u.id")
+    Slice<DoctorSummary> findDoctorSummariesFirst(Pageable pageable);
+
+    //Cursor dentro de los doctores sin especialidad (MySQL los ordena primero): el resto de ese grupo y luego todos
+    //los que tienen especialidad. Cada rama recorre idx_users_directory por rango
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u left join u.specialty s " +
+            "where u.userType = 'DOCTOR' and (u.specialtyId is not null " +
+            "or (u.specialtyId is null and (u.lastname > :lastname or (u.lastname = :lastname and u.id > :id)))) " +
+            "order by u.specialtyId, u.lastname, u.id")
+    Slice<DoctorSummary> findDoctorSummariesAfterNoSpecialty(@Param("lastname") String lastname, @Param("id") Long id,
+                                                             Pageable pageable);
+
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u left join u.specialty s " +
+            "where u.userType = 'DOCTOR' and (u.specialtyId > :specialtyId " +
+            "or (u.specialtyId = :specialtyId and (u.lastname > :lastname or (u.lastname = :lastname and u.id > :id)))) " +
+            "order by u.specialtyId, u.lastname, u.id")
+    Slice<DoctorSummary> findDoctorSummariesAfter(@Param("specialtyId") Long specialtyId, @Param("lastname") String lastname,
+                                                  @Param("id") Long id, Pageable pageable);
+
+    //Directorio filtrado por especialidad; recorre idx_users_directory (user_type, specialty_id, lastname, id)
+    @Query("select new com.doctors.backend.models.DoctorSummary(u.id, u.firstname, u.lastname, s.id, s.name, u.photo, u.phone) " +
+            "from User u join u.specialty s " +
+            "where u.userType = 'DOCTOR' and u.specialtyId = :specialtyId " +
+            "and (:id is null or u.lastname > :lastname or (u.lastname = :lastname and u.id > :id)) " +
+            "order by u.lastname, u.id")
+    Slice<DoctorSummary> findDoctorSummariesBySpecialty(@Param("specialtyId") Long specialtyId, @Param("lastname") String lastname,
+                                                        @Param("id") Long id, Pageable pageable);
+
+    @Query("select u.photo, count(u) from User u where u.photo is not null and u.photo <> '' group by u.photo")
+    List<Object[]> countPhotoReferences();
+
+    @Query("select u.email from User u where u.email is not null")
+    List<String> findAllEmails();
+
+    @Query("select u.email from User u where u.id = :id")
+    String findEmailById(@Param("id") Long id);
+
+    @Query("select coalesce(u.unreadMessages, 0) from User u where u.id = :id")
+    Integer findUnreadMessages(@Param("id") Long id);
+
+    @Query("select coalesce(u.tokenVersion, 0) from User u where u.id = :id")
+    Integer findTokenVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update users u set u.unread_messages = " +
+            "(select count(*) from messages m where m.user_id = u.id and m.is_read = false) " +
+            "where u.unread_messages is null", nativeQuery = true)
+    int backfillUnreadMessages();
+
+    @Modifying
+    @Query(value = "update users set lastname = '' where lastname is null", nativeQuery = true)
+    int backfillNullLastnames();
+
+    //Unica consulta por rol (join a user_roles/roles): solo completa user_type; el subquery correlacionado sobre u.roles
+    //no vuelve a leer users, asi que MySQL lo acepta en un update y no depende del "update ... join" de MySQL
+    @Modifying
+    @Query("update User u set u.userType = :userType where u.userType is null " +
+            "and exists (select r.id from u.roles r where r.name = :role)")
+    int backfillUserType(@Param("role") String role, @Param("userType") String userType);
 }
@@ -0,0 +1,12 @@
+package com.doctors.backend.repositories;
+
+import com.doctors.backend.entity.User;
+
+public interface UserRepositoryCustom {
+
+    User findByNaturalEmail(String email);
+
+    int addUnreadMessages(Long id, int delta);
+
+    int incrementTokenVersion(Long id);
+}
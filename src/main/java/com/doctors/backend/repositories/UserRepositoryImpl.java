@@ -0,0 +1,46 @@
+package com.doctors.backend.repositories;
+
+import com.doctors.backend.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    //Busqueda por natural id: se resuelve desde el cache de segundo nivel sin ir a la base de datos
+    @Override
+    @Transactional(readOnly = true)
+    public User findByNaturalEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .load(email);
+    }
+
+    /*
+     * Los contadores se actualizan por JDBC y no con un update JPQL: Hibernate invalida toda la region de User
+     * del cache de segundo nivel ante cualquier update masivo sobre la tabla users, y esto corre en cada mensaje.
+     * Las columnas no son insertables ni actualizables desde la entidad y se leen con consultas escalares, asi que
+     * el valor que quede en la entidad cacheada no se usa. JdbcTemplate participa de la transaccion JPA en curso.
+     */
+    @Override
+    public int addUnreadMessages(Long id, int delta) {
+        return jdbcTemplate.update("update users set unread_messages = coalesce(unread_messages, 0) + ? where id = ?", delta, id);
+    }
+
+    @Override
+    public int incrementTokenVersion(Long id) {
+        return jdbcTemplate.update("update users set token_version = coalesce(token_version, 0) + 1 where id = ?", id);
+    }
+}
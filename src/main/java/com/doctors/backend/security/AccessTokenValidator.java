@@ -0,0 +1,89 @@
+package com.doctors.backend.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Valida un access token y arma su principal: firma, expiracion, revocacion (jti) y version del usuario.
+ * Lo usan el filtro HTTP y el canal STOMP, asi ambos aceptan exactamente los mismos tokens.
+ */
+@Component
+public class AccessTokenValidator {
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtTokenCache tokenCache;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private RevokedTokenStore revokedTokenStore;
+
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
+
+    //Devuelve null si el token no es valido; un token mal formado lanza JwtException
+    public UserDetails resolvePrincipal(String jwtToken) {
+        JwtTokenCache.Entry cached = tokenCache.get(jwtToken);
+        if(cached != null) {
+            return isVersionCurrent(cached.getClaims()) && !revokedTokenStore.isRevoked(cached.getClaims().getId())
+                    ? cached.getPrincipal() : null;
+        }
+
+        //Parseamos el token una sola vez y solo vamos a la base de datos en un miss
+        Claims claims = jwtService.extractAllClaims(jwtToken);
+        String email = claims.getSubject();
+        if(email == null || claims.getExpiration().before(new Date()) || revokedTokenStore.isRevoked(claims.getId())) {
+            return null;
+        }
+
+        UserDetails principal;
+        if(stateless && claims.get(JwtService.CLAIM_USER_ID) != null && claims.get(JwtService.CLAIM_ROLES) != null) {
+            //El token ya trae id y roles: armamos la autenticacion sin consultar la tabla users
+            if(!isVersionCurrent(claims)) {
+                return null;
+            }
+            List<?> roles = claims.get(JwtService.CLAIM_ROLES, List.class);
+            principal = User.withUsername(email)
+                    .password("")
+                    .authorities(roles.stream().map(role -> new SimpleGrantedAuthority(String.valueOf(role))).toList())
+                    .build();
+        } else {
+            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
+            if(!jwtService.validateToken(claims, userDetails)) {
+                return null;
+            }
+            principal = User.withUsername(userDetails.getUsername())
+                    .password("")
+                    .authorities(userDetails.getAuthorities())
+                    .build();
+        }
+
+        tokenCache.put(jwtToken, claims, principal);
+        return principal;
+    }
+
+    //Los tokens emitidos antes de agregar la version no la traen; se validan igual que antes
+    private boolean isVersionCurrent(Claims claims) {
+        Number userId = claims.get(JwtService.CLAIM_USER_ID, Number.class);
+        Number version = claims.get(JwtService.CLAIM_VERSION, Number.class);
+        if(userId == null || version == null) {
+            return true;
+        }
+        return tokenVersionService.isCurrent(userId.longValue(), version.intValue());
+    }
+}
@@ -0,0 +1,59 @@
+package com.doctors.backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente sin bloqueos: los bits se escriben con CAS sobre un AtomicLongArray.
+ * Un resultado negativo es definitivo; uno positivo solo indica que el valor puede estar presente.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final int hashes;
+
+    public BloomFilter(int bits, int hashes) {
+        this.words = new AtomicLongArray(Math.max(1, bits / 64));
+        this.hashes = hashes;
+    }
+
+    public void add(String value) {
+        for (int position : positions(value)) {
+            int word = position >>> 6;
+            long mask = 1L << (position & 63);
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        for (int position : positions(value)) {
+            if ((words.get(position >>> 6) & (1L << (position & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Doble hashing: h1 + i*h2 a partir de un FNV-1a de 64 bits
+    private int[] positions(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int size = words.length() * 64;
+        int[] positions = new int[hashes];
+        for (int i = 0; i < hashes; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, size);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,148 @@
+package com.doctors.backend.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder BCrypt que ejecuta el hash y la verificacion en un pool de CPU de tamaño fijo con una cola acotada.
+ * Cuando la cola esta llena se lanza HashingOverloadException (503) en lugar de dejar que una ola de logins
+ * consuma toda la CPU del servidor. El costo se puede ajustar por rol y los hashes con un costo distinto
+ * se detectan con upgradeEncoding para volver a generarlos en el login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, BCryptPasswordEncoder> encodersByRole = new ConcurrentHashMap<>();
+    private final Map<String, Integer> strengthByRole;
+    private final int defaultStrength;
+    private final BCryptPasswordEncoder defaultEncoder;
+    private final long timeoutMs;
+
+    public BoundedPasswordEncoder(int threads, int queueCapacity, long timeoutMs, int defaultStrength, Map<String, Integer> strengthByRole) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+        this.defaultStrength = defaultStrength;
+        this.strengthByRole = Map.copyOf(strengthByRole);
+        this.defaultEncoder = new BCryptPasswordEncoder(defaultStrength);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> defaultEncoder.encode(rawPassword));
+    }
+
+    public String encode(CharSequence rawPassword, String role) {
+        BCryptPasswordEncoder encoder = encoderFor(role);
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    //Para importaciones masivas: como maximo un hash del lote en curso por hilo del pool, asi el lote avanza
+    //en paralelo sin ocupar la cola que comparten los logins
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords, String role) {
+        BCryptPasswordEncoder encoder = encoderFor(role);
+        int window = executor.getMaximumPoolSize();
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (futures.size() - hashes.size() >= window) {
+                    hashes.add(await(futures.get(hashes.size())));
+                }
+                try {
+                    futures.add(executor.submit(() -> encoder.encode(rawPassword)));
+                } catch (RejectedExecutionException e) {
+                    throw new HashingOverloadException();
+                }
+            }
+            while (hashes.size() < futures.size()) {
+                hashes.add(await(futures.get(hashes.size())));
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return hashes;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        //BCrypt lee el costo del propio hash, asi que cualquier encoder sirve para verificar
+        return submit(() -> defaultEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return upgradeEncoding(encodedPassword, null);
+    }
+
+    public boolean upgradeEncoding(String encodedPassword, String role) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            int cost = Integer.parseInt(encodedPassword.substring(4, 6));
+            return cost != strengthFor(role);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private int strengthFor(String role) {
+        return role == null ? defaultStrength : strengthByRole.getOrDefault(role, defaultStrength);
+    }
+
+    private BCryptPasswordEncoder encoderFor(String role) {
+        int strength = strengthFor(role);
+        if (strength == defaultStrength) {
+            return defaultEncoder;
+        }
+        return encodersByRole.computeIfAbsent(role, key -> new BCryptPasswordEncoder(strength));
+    }
+
+    private <T> T submit(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            throw new HashingOverloadException();
+        }
+        return await(future);
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new HashingOverloadException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new HashingOverloadException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
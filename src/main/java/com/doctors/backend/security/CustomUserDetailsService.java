@@ -15,7 +15,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     private UserRepository userRepository;
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email);
+        User user = userRepository.findByNaturalEmail(email);
 
         if(user == null){
             throw new UsernameNotFoundException("Usuario no encontrado.");
@@ -0,0 +1,12 @@
+package com.doctors.backend.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "El servicio está ocupado, intente nuevamente en unos momentos.")
+public class HashingOverloadException extends RuntimeException {
+
+    public HashingOverloadException() {
+        super("El servicio está ocupado, intente nuevamente en unos momentos.");
+    }
+}
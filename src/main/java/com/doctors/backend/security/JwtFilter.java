@@ -18,15 +18,11 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
-
-    @Autowired
-    private JwtService jwtService;
+    private AccessTokenValidator accessTokenValidator;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String email = null;
         String jwtToken = null;
 
         //Validamos las credenciales o si no devolvemos un 403
@@ -36,16 +32,15 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         jwtToken = authHeader.substring(7);
-        email = jwtService.extractUsername(jwtToken);
 
         //Si el usuario no está autenticado
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
-            if(jwtService.validateToken(jwtToken, userDetails)) {
+        if(SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails principal = accessTokenValidator.resolvePrincipal(jwtToken);
+            if(principal != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
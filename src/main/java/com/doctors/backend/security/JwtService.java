@@ -1,21 +1,93 @@
 package com.doctors.backend.security;
 
+import com.doctors.backend.entity.Role;
+import com.doctors.backend.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import javax.crypto.SecretKey;
+import java.security.Key;
+
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    private String SECRET_KEY = "5a990397b91197c662cd8fd140c6864552730adf6c32e070ead2f69df84e3bc3";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_VERSION = "ver";
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    //Anillo de claves "kid:secretoBase64,kid2:secreto2"; se firma con la activa y se verifica con cualquiera del anillo
+    @Value("${jwt.keys}")
+    private String keys;
+
+    @Value("${jwt.active-kid}")
+    private String activeKid;
+
+    @Value("${jwt.access-ttl-ms:900000}")
+    private long accessTtlMs;
+
+    private final Map<String, SecretKey> keyRing = new HashMap<>();
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        for (String entry : keys.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("Formato invalido en jwt.keys, se espera kid:secreto.");
+            }
+            if (parts[1].isBlank()) {
+                throw new IllegalStateException("No hay secreto configurado para la clave JWT '" + parts[0].trim() + "' (defina JWT_SECRET).");
+            }
+            keyRing.put(parts[0].trim(), Keys.hmacShaKeyFor(Decoders.BASE64.decode(parts[1].trim())));
+        }
+
+        signingKey = keyRing.get(activeKid);
+        if (signingKey == null) {
+            throw new IllegalStateException("jwt.active-kid no existe en jwt.keys.");
+        }
+
+        //El parser es inmutable y seguro entre hilos, asi que se construye una sola vez
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    //jjwt 0.11 declara este metodo con JwsHeader sin parametrizar; JwsHeader<?> no lo sobrescribe
+                    @SuppressWarnings("rawtypes")
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        //Los tokens emitidos antes de usar kid se firmaron con la clave activa
+                        String kid = header.getKeyId();
+                        SecretKey key = kid == null ? signingKey : keyRing.get(kid);
+                        if (key == null) {
+                            throw new SignatureException("Clave de firma desconocida.");
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -29,8 +101,8 @@ public class JwtService {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private Boolean isTokenExpired(String token) {
@@ -39,18 +111,31 @@ public class JwtService {
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+
+        //Incluimos id, roles y version para que el filtro no tenga que cargar al usuario en cada peticion
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLES, user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).toList());
+            claims.put(CLAIM_VERSION, tokenVersionService.currentVersion(user.getId()));
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
 
-        return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 20))
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
+        return Jwts.builder().setHeaderParam(JwsHeader.KEY_ID, activeKid)
+                .setClaims(claims).setSubject(subject).setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + accessTtlMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256).compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
+    }
 }
@@ -0,0 +1,122 @@
+package com.doctors.backend.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de tokens ya verificados. Guarda los claims y un principal liviano por hash del token,
+ * hasta que el token expira o el usuario cambia.
+ */
+@Component
+public class JwtTokenCache {
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public Entry get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    public void put(String token, Claims claims, UserDetails principal) {
+        if (entries.size() >= maxSize) {
+            evictExpired();
+        }
+        if (entries.size() >= maxSize) {
+            //Si sigue lleno descartamos una entrada cualquiera para mantener el cache acotado
+            Iterator<String> it = entries.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(hash(token), new Entry(claims, principal, claims.getExpiration().getTime()));
+    }
+
+    public void evictUser(String username) {
+        if (username == null) {
+            return;
+        }
+        entries.values().removeIf(entry -> username.equals(entry.getPrincipal().getUsername()));
+    }
+
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Entry {
+
+        private final Claims claims;
+        private final UserDetails principal;
+        private final long expiresAt;
+
+        Entry(Claims claims, UserDetails principal, long expiresAt) {
+            this.claims = claims;
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+
+        public Claims getClaims() {
+            return claims;
+        }
+
+        public UserDetails getPrincipal() {
+            return principal;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
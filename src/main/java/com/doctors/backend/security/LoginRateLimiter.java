@@ -0,0 +1,128 @@
+package com.doctors.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limitador de intentos de login por email y por IP con ventana deslizante.
+ * Los contadores viven en un count-min sketch de tamaño fijo (memoria acotada sin importar cuantas claves
+ * distintas lleguen) y se actualizan con operaciones atomicas, sin locks. El conteo puede sobreestimar
+ * pero nunca subestimar, asi que un atacante no puede evadir el limite.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 14;
+
+    private final long[] seeds = new long[DEPTH];
+    private final AtomicReference<Windows> windows;
+
+    @Value("${security.login.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${security.login.max-per-email:5}")
+    private int maxPerEmail;
+
+    @Value("${security.login.max-per-ip:20}")
+    private int maxPerIp;
+
+    public LoginRateLimiter() {
+        for (int i = 0; i < DEPTH; i++) {
+            seeds[i] = ThreadLocalRandom.current().nextLong();
+        }
+        windows = new AtomicReference<>(new Windows(new Window(0), new Window(0)));
+    }
+
+    /**
+     * Registra un intento y devuelve false si el email o la IP ya superaron su limite en la ventana.
+     */
+    public boolean tryAcquire(String email, String ip) {
+        long now = System.currentTimeMillis();
+        Windows current = rotate(now);
+
+        double emailCount = email == null ? 0 : current.record("e:" + email.toLowerCase(Locale.ROOT), now, windowMs);
+        double ipCount = ip == null ? 0 : current.record("i:" + ip, now, windowMs);
+
+        return emailCount <= maxPerEmail && ipCount <= maxPerIp;
+    }
+
+    public long getWindowSeconds() {
+        return Math.max(1, windowMs / 1000);
+    }
+
+    private Windows rotate(long now) {
+        while (true) {
+            Windows current = windows.get();
+            if (now < current.current.start + windowMs) {
+                return current;
+            }
+            long start = now - (now % windowMs);
+            //Si paso mas de una ventana completa sin trafico, la anterior ya no aporta nada
+            Window previous = start - current.current.start == windowMs ? current.current : new Window(start - windowMs);
+            Windows next = new Windows(new Window(start), previous);
+            if (windows.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    //Cada fila hashea los bytes de la clave con su propia semilla (FNV-1a de 64 bits + mezcla final de murmur3):
+    //dos claves que chocan en una fila no chocan por eso en las demas, como pasaria partiendo de String.hashCode
+    private int[] indexes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int[] indexes = new int[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            long h = 0xcbf29ce484222325L ^ seeds[row];
+            for (byte b : bytes) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            indexes[row] = row * WIDTH + (int) (h & (WIDTH - 1));
+        }
+        return indexes;
+    }
+
+    private final class Windows {
+
+        private final Window current;
+        private final Window previous;
+
+        Windows(Window current, Window previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+
+        double record(String key, long now, long windowMs) {
+            int currentCount = Integer.MAX_VALUE;
+            int previousCount = Integer.MAX_VALUE;
+            for (int i : indexes(key)) {
+                currentCount = Math.min(currentCount, current.counts.incrementAndGet(i));
+                previousCount = Math.min(previousCount, previous.counts.get(i));
+            }
+            double weight = 1.0 - (double) (now - current.start) / windowMs;
+            return previousCount * Math.max(0, weight) + currentCount;
+        }
+    }
+
+    private static final class Window {
+
+        private final long start;
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(DEPTH * WIDTH);
+
+        Window(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.doctors.backend.security;
+
+import com.doctors.backend.entity.RefreshToken;
+import com.doctors.backend.repositories.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Refresh tokens opacos y aleatorios. En la base de datos solo se guarda su SHA-256, por lo que renovarlos
+ * cuesta una busqueda por indice y ningun calculo de BCrypt. Cada uso rota el token: el anterior queda revocado.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh-ttl-ms:1209600000}")
+    private long refreshTtlMs;
+
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setUserId(userId);
+        refreshToken.setExpiresAt(new Date(System.currentTimeMillis() + refreshTtlMs));
+        refreshTokenRepository.save(refreshToken);
+
+        return token;
+    }
+
+    /**
+     * Revoca el refresh token y devuelve el id de su usuario, o null si no es valido.
+     */
+    @Transactional
+    public Long consume(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token));
+        if (refreshToken == null || refreshToken.isRevoked() || refreshToken.getExpiresAt().before(new Date())) {
+            return null;
+        }
+        //El update condicional evita que dos peticiones concurrentes usen el mismo token
+        if (refreshTokenRepository.revoke(refreshToken.getId()) == 0) {
+            return null;
+        }
+        return refreshToken.getUserId();
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-cleanup-ms:86400000}")
+    @Transactional
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(new Date());
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.doctors.backend.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conjunto de identificadores (jti) de access tokens revocados antes de expirar.
+ * Un filtro de Bloom responde en O(1) que un token no esta revocado, que es el caso de casi todas las peticiones;
+ * solo ante un posible positivo se consulta el mapa exacto. Las entradas se descartan cuando el token expira
+ * y el filtro se reconstruye periodicamente para no acumular bits de tokens ya vencidos.
+ */
+@Component
+public class RevokedTokenStore {
+
+    private static final int HASHES = 4;
+
+    @Value("${jwt.revocation.bloom-bits:1048576}")
+    private int bits;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final AtomicReference<BloomFilter> bloom = new AtomicReference<>();
+
+    public void revoke(String jti, long expiresAt) {
+        if (jti == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.put(jti, expiresAt);
+        filter().add(jti);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter().mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-ms:300000}")
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        BloomFilter next = new BloomFilter(bits, HASHES);
+        revoked.keySet().forEach(next::add);
+        bloom.set(next);
+        //Un revoke concurrente pudo escribir en el filtro anterior; lo volvemos a agregar
+        revoked.keySet().forEach(next::add);
+    }
+
+    private BloomFilter filter() {
+        BloomFilter current = bloom.get();
+        if (current == null) {
+            bloom.compareAndSet(null, new BloomFilter(bits, HASHES));
+            current = bloom.get();
+        }
+        return current;
+    }
+}
@@ -1,6 +1,7 @@
 package com.doctors.backend.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,11 +11,11 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -32,7 +33,7 @@ public class SecurityConfig {
     @Bean
     SecurityFilterChain filterChain(HttpSecurity http) throws Exception{
         http.csrf(csrf -> csrf.disable())
-                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/**", "/auth/**", "/api/doctors/**", "/api/doctors", "/api/patient/register", "/api/doctors/uploads/img/**", "/api/patient/**", "/api/doctors/page/**", "/api/doctors/page/**", "/api/doctors/email/**").permitAll()
+                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/**", "/auth/**", "/api/doctors/**", "/api/doctors", "/api/patient/register", "/api/doctors/uploads/img/**", "/api/patient/**", "/api/doctors/page/**", "/api/doctors/page/**", "/api/doctors/email/**", "/ws/**").permitAll()
                         .requestMatchers(HttpMethod.OPTIONS).permitAll()
                         .anyRequest().authenticated()
                 )
@@ -47,8 +48,15 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
-    @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    BoundedPasswordEncoder passwordEncoder(@Value("${security.hashing.threads:0}") int threads,
+                                           @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.hashing.timeout-ms:2000}") long timeoutMs,
+                                           @Value("${security.bcrypt.strength.default:10}") int defaultStrength,
+                                           @Value("${security.bcrypt.strength.doctor:10}") int doctorStrength,
+                                           @Value("${security.bcrypt.strength.patient:10}") int patientStrength) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(poolSize, queueCapacity, timeoutMs, defaultStrength,
+                Map.of("ROLE_DOCTOR", doctorStrength, "ROLE_PATIENT", patientStrength));
     }
 }
\ No newline at end of file
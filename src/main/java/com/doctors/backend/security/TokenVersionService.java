@@ -0,0 +1,73 @@
+package com.doctors.backend.security;
+
+import com.doctors.backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version de token por usuario. Cada token lleva la version vigente al emitirse; al revocar se incrementa la
+ * version y todos los tokens anteriores dejan de ser validos. Las versiones se mantienen en memoria, por lo que
+ * la verificacion en cada peticion no consulta la base de datos salvo la primera vez por usuario.
+ * Dentro de una transaccion la version se olvida recien al confirmarla: si se olvidara antes, una peticion
+ * concurrente leeria la version anterior (aun sin confirmar la nueva) y la dejaria en memoria indefinidamente.
+ */
+@Service
+public class TokenVersionService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenCache tokenCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public int currentVersion(Long userId) {
+        return versions.computeIfAbsent(userId, id -> {
+            //Si el usuario ya no existe usamos una version que ningun token puede tener
+            Integer version = userRepository.findTokenVersion(id);
+            return version == null ? -1 : version;
+        });
+    }
+
+    public boolean isCurrent(Long userId, Integer tokenVersion) {
+        return userId != null && tokenVersion != null && currentVersion(userId) == tokenVersion;
+    }
+
+    @Transactional
+    public void revoke(Long userId, String email) {
+        if (userId == null) {
+            return;
+        }
+        userRepository.incrementTokenVersion(userId);
+        refreshTokenService.revokeAll(userId);
+        forget(userId, email);
+    }
+
+    public void forget(Long userId, String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId, email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId, email);
+            }
+        });
+    }
+
+    private void evict(Long userId, String email) {
+        versions.remove(userId);
+        tokenCache.evictUser(email);
+    }
+}
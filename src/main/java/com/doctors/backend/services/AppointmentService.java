@@ -0,0 +1,29 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.entity.Appointment;
+import com.doctors.backend.entity.AvailabilityRule;
+import com.doctors.backend.models.FreeSlot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AppointmentService {
+
+    List<FreeSlot> findFreeSlots(Long specialtyId, Long doctorId, LocalDateTime from, LocalDateTime to, int limit);
+
+    Appointment book(Long doctorId, Long patientId, LocalDateTime startsAt, String reason);
+
+    boolean cancel(Long appointmentId, Long userId);
+
+    List<Appointment> getAppointments(Long doctorId, LocalDateTime from, LocalDateTime to);
+
+    List<AvailabilityRule> getAvailability(Long doctorId);
+
+    List<AvailabilityRule> replaceAvailability(Long doctorId, List<AvailabilityRule> rules);
+
+    void doctorChanged(Long doctorId, Long specialtyId);
+
+    void doctorRemoved(Long doctorId);
+
+    void rebuild();
+}
@@ -8,5 +8,9 @@ public interface AuthService {
 
     public AuthResponse login(AuthenticationRequest request);
 
+    AuthResponse refresh(String refreshToken);
+
+    void logout(String refreshToken, String accessToken);
+
     User findByEmail(String email);
 }
@@ -0,0 +1,13 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.models.DoctorImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface DoctorImportService {
+
+    DoctorImportReport importCsv(InputStream input) throws IOException;
+
+    DoctorImportReport importNdjson(InputStream input) throws IOException;
+}
@@ -0,0 +1,20 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorSummary;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DoctorSearchService {
+
+    List<DoctorSummary> search(String query, int limit);
+
+    void index(User doctor);
+
+    void remove(Long id);
+
+    Map<Long, Integer> countBySpecialty();
+
+    void rebuild();
+}
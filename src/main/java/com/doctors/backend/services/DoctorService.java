@@ -3,9 +3,17 @@ package com.doctors.backend.services;
 import com.doctors.backend.entity.Message;
 import com.doctors.backend.entity.Specialty;
 import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DirectoryCursor;
+import com.doctors.backend.models.DirectorySlice;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.models.InboxSlice;
+import com.doctors.backend.models.SpecialtyFacet;
+import com.doctors.backend.models.SpecialtySnapshot;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Date;
 import java.util.List;
 
 public interface DoctorService {
@@ -14,6 +22,14 @@ public interface DoctorService {
 
     Page<User> findAll(Pageable pageable);
 
+    List<DoctorSummary> getDoctorSummaries();
+
+    Slice<DoctorSummary> getDoctorSummaries(Pageable pageable);
+
+    DirectorySlice getDoctorSummariesAfter(DirectoryCursor cursor, int size);
+
+    DirectorySlice getDoctorSummariesBySpecialty(Long specialtyId, DirectoryCursor cursor, int size);
+
     User getDoctor(Long id);
     User registerDoctor(User doctor);
 
@@ -22,8 +38,20 @@ public interface DoctorService {
 
     List<Specialty> findAllSpecialties();
 
+    SpecialtySnapshot getSpecialtySnapshot();
+
+    List<SpecialtyFacet> getSpecialtyFacets();
+
+    void refreshSpecialties();
+
     Message saveMessage(Message message, User user);
 
+    String findEmailById(Long id);
+
+    InboxSlice getInbox(Long doctorId, String reason, Date from, Date to, Date beforeCreatedAt, Long beforeId, int size);
+
+    boolean markMessageRead(Long doctorId, Long messageId);
+
     void deleteDoctor(Long id);
 
     User findByEmail(String email);
@@ -0,0 +1,26 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.entity.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Locale;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "El email ya está en uso.")
+public class EmailAlreadyRegisteredException extends RuntimeException {
+
+    public EmailAlreadyRegisteredException() {
+        super("El email ya está en uso.");
+    }
+
+    //Indica si el error de integridad vino del indice unico del email y no de otra restriccion (largo, llave foranea)
+    public static boolean isEmailConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,10 @@
+package com.doctors.backend.services;
+
+public interface EmailRegistry {
+
+    boolean isRegistered(String email);
+
+    void add(String email);
+
+    void rebuild();
+}
@@ -0,0 +1,11 @@
+package com.doctors.backend.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public interface ImageService {
+
+    void serve(String imageName, Integer size, String defaultImage, HttpServletRequest request, HttpServletResponse response) throws IOException;
+}
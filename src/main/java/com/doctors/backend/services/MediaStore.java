@@ -0,0 +1,23 @@
+package com.doctors.backend.services;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface MediaStore {
+
+    String store(MultipartFile file) throws IOException;
+
+    //Confirma una subida una vez guardada la fila que la referencia
+    void retain(String name);
+
+    //Descarta una subida cuya fila no se pudo guardar
+    void discard(String name);
+
+    void release(String name);
+
+    Path resolve(String name);
+
+    Path resolveVariant(String name, int size);
+}
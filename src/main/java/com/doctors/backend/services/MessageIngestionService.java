@@ -0,0 +1,10 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.entity.Message;
+
+public interface MessageIngestionService {
+
+    boolean enqueue(Message message, Long userId, String doctorEmail);
+
+    int pending();
+}
@@ -0,0 +1,8 @@
+package com.doctors.backend.services;
+
+import com.doctors.backend.models.MessageNotification;
+
+public interface MessageNotifier {
+
+    void notifyNewMessage(String doctorEmail, MessageNotification notification);
+}
@@ -0,0 +1,12 @@
+package com.doctors.backend.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "La hora solicitada ya no está disponible.")
+public class SlotUnavailableException extends RuntimeException {
+
+    public SlotUnavailableException() {
+        super("La hora solicitada ya no está disponible.");
+    }
+}
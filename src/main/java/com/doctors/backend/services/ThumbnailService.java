@@ -0,0 +1,12 @@
+package com.doctors.backend.services;
+
+import java.nio.file.Path;
+
+public interface ThumbnailService {
+
+    void generateAsync(String imageName);
+
+    Path findVariant(String imageName, int size);
+
+    int backfill();
+}
@@ -0,0 +1,12 @@
+package com.doctors.backend.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNSUPPORTED_MEDIA_TYPE, reason = "El archivo no es una imagen válida (png, jpg, gif o webp).")
+public class UnsupportedImageException extends RuntimeException {
+
+    public UnsupportedImageException() {
+        super("El archivo no es una imagen válida (png, jpg, gif o webp).");
+    }
+}
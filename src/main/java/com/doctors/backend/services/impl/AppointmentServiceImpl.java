@@ -0,0 +1,416 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Appointment;
+import com.doctors.backend.entity.AvailabilityRule;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.BookedSlot;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.models.FreeSlot;
+import com.doctors.backend.repositories.AppointmentRepository;
+import com.doctors.backend.repositories.AvailabilityRuleRepository;
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.services.AppointmentService;
+import com.doctors.backend.services.SlotUnavailableException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Agenda con un indice en memoria por doctor: un BitSet con el horario semanal de atencion y otro con los
+ * bloques reservados, contados desde la medianoche del dia base hasta el horizonte configurado.
+ * La disponibilidad se responde recorriendo solo estos bits; la base de datos sigue siendo la fuente de verdad
+ * gracias a la clave unica (doctor_id, starts_at) y a la version optimista de Appointment.
+ */
+@Service
+public class AppointmentServiceImpl implements AppointmentService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AvailabilityRuleRepository availabilityRuleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${appointments.slot-minutes:30}")
+    private int slotMinutes;
+
+    @Value("${appointments.horizon-days:60}")
+    private int horizonDays;
+
+    @Value("${appointments.zone:America/Santiago}")
+    private String zone;
+
+    private volatile SlotIndex index;
+
+    @PostConstruct
+    public void init() {
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalStateException("appointments.slot-minutes debe dividir exactamente un día.");
+        }
+        index = new SlotIndex(today(), new ConcurrentHashMap<>());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    //Cada medianoche se corre la base del indice: se descartan los bloques pasados y se abre un dia mas del horizonte.
+    //Una reserva confirmada mientras se reconstruye puede quedar fuera del nuevo indice; la clave unica la rechaza
+    //igual y el bloque queda marcado en el primer intento
+    @Override
+    @Scheduled(cron = "${appointments.rebuild-cron:0 0 0 * * *}", zone = "${appointments.zone:America/Santiago}")
+    public void rebuild() {
+        LocalDate base = today();
+        LocalDateTime start = base.atStartOfDay();
+
+        Map<Long, DoctorSlots> doctors = new ConcurrentHashMap<>();
+        for (DoctorSummary doctor : userRepository.findDoctorSummaries()) {
+            doctors.put(doctor.getId(), new DoctorSlots(doctor.getSpecialtyId()));
+        }
+
+        Map<Long, List<AvailabilityRule>> rules = availabilityRuleRepository.findAll().stream()
+                .collect(Collectors.groupingBy(rule -> rule.getDoctor().getId()));
+        rules.forEach((doctorId, doctorRules) -> {
+            DoctorSlots slots = doctors.get(doctorId);
+            if (slots != null) {
+                slots.weekly = weeklyMask(doctorRules);
+            }
+        });
+
+        for (BookedSlot booked : appointmentRepository.findBookedSlots(start, start.plusDays(horizonDays))) {
+            DoctorSlots slots = doctors.get(booked.getDoctorId());
+            if (slots != null) {
+                slots.tryReserve((int) floorOffset(start, booked.getStartsAt()));
+            }
+        }
+
+        index = new SlotIndex(base, doctors);
+    }
+
+    @Override
+    public List<FreeSlot> findFreeSlots(Long specialtyId, Long doctorId, LocalDateTime from, LocalDateTime to, int limit) {
+        SlotIndex current = index;
+        LocalDateTime start = current.base.atStartOfDay();
+
+        long first = Math.max(0, ceilOffset(start, now()));
+        if (from != null) {
+            first = Math.max(first, ceilOffset(start, from));
+        }
+        long end = to == null ? first + 7L * slotsPerDay() : ceilOffset(start, to);
+        end = Math.min(end, horizonSlots());
+        if (first >= end || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, DoctorSlots> candidates = current.doctors;
+        if (doctorId != null) {
+            DoctorSlots slots = candidates.get(doctorId);
+            candidates = slots == null ? Collections.emptyMap() : Map.of(doctorId, slots);
+        }
+
+        int weekStart = weekIndex(current.base, 0);
+        List<FreeSlot> result = new ArrayList<>();
+        for (Map.Entry<Long, DoctorSlots> entry : candidates.entrySet()) {
+            DoctorSlots slots = entry.getValue();
+            if (specialtyId != null && !specialtyId.equals(slots.specialtyId)) {
+                continue;
+            }
+            for (int offset : slots.free(weekStart, slotsPerWeek(), (int) first, (int) end, limit)) {
+                LocalDateTime startsAt = start.plusMinutes((long) offset * slotMinutes);
+                result.add(new FreeSlot(entry.getKey(), startsAt, startsAt.plusMinutes(slotMinutes)));
+            }
+        }
+
+        result.sort(Comparator.comparing(FreeSlot::getStartsAt).thenComparing(FreeSlot::getDoctorId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @Override
+    @Transactional
+    public Appointment book(Long doctorId, Long patientId, LocalDateTime startsAt, String reason) {
+        SlotIndex current = index;
+        DoctorSlots slots = current.doctors.get(doctorId);
+        if (slots == null) {
+            throw new IllegalArgumentException("El doctor no existe.");
+        }
+
+        long offset = floorOffset(current.base.atStartOfDay(), startsAt);
+        if (!isAligned(startsAt.toLocalTime()) || !startsAt.isAfter(now()) || offset < 0 || offset >= horizonSlots()
+                || !slots.weekly.get(weekIndex(current.base, (int) offset))) {
+            throw new IllegalArgumentException("La hora solicitada no está dentro del horario de atención del doctor.");
+        }
+
+        //El bloque se aparta primero en memoria, asi dos reservas simultaneas del mismo bloque no compiten en la base de datos
+        int slot = (int) offset;
+        if (!slots.tryReserve(slot)) {
+            throw new SlotUnavailableException();
+        }
+
+        //Si la transaccion no se confirma se libera el bloque, salvo que la base de datos confirme que ya estaba tomado
+        AtomicBoolean taken = new AtomicBoolean(false);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && !taken.get()) {
+                    slots.release(slot);
+                }
+            }
+        });
+
+        User patient = userRepository.findById(patientId).orElse(null);
+        if (patient == null) {
+            throw new IllegalArgumentException("El paciente no existe.");
+        }
+
+        Appointment appointment = appointmentRepository.findByDoctorAndStartsAt(doctorId, startsAt);
+        if (appointment == null) {
+            appointment = new Appointment();
+            appointment.setDoctor(userRepository.getReferenceById(doctorId));
+            appointment.setStartsAt(startsAt);
+        } else if (Appointment.STATUS_BOOKED.equals(appointment.getStatus())) {
+            taken.set(true);
+            throw new SlotUnavailableException();
+        }
+
+        appointment.setPatient(patient);
+        appointment.setEndsAt(startsAt.plusMinutes(slotMinutes));
+        appointment.setReason(reason);
+        appointment.setStatus(Appointment.STATUS_BOOKED);
+
+        try {
+            return appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            taken.set(true);
+            throw new SlotUnavailableException();
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean cancel(Long appointmentId, Long userId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+        if (appointment == null || !Appointment.STATUS_BOOKED.equals(appointment.getStatus())
+                || !(userId.equals(appointment.getDoctorId()) || userId.equals(appointment.getPatientId()))) {
+            return false;
+        }
+
+        appointment.setStatus(Appointment.STATUS_CANCELLED);
+        appointmentRepository.saveAndFlush(appointment);
+
+        Long doctorId = appointment.getDoctorId();
+        LocalDateTime startsAt = appointment.getStartsAt();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                SlotIndex current = index;
+                DoctorSlots slots = current.doctors.get(doctorId);
+                long offset = floorOffset(current.base.atStartOfDay(), startsAt);
+                if (slots != null && offset >= 0 && offset < horizonSlots()) {
+                    slots.release((int) offset);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public List<Appointment> getAppointments(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        return appointmentRepository.findBooked(doctorId, from, to);
+    }
+
+    @Override
+    public List<AvailabilityRule> getAvailability(Long doctorId) {
+        return availabilityRuleRepository.findByDoctorIdOrderByDayOfWeekAscStartTimeAsc(doctorId);
+    }
+
+    @Override
+    @Transactional
+    public List<AvailabilityRule> replaceAvailability(Long doctorId, List<AvailabilityRule> rules) {
+        List<AvailabilityRule> newRules = new ArrayList<>();
+        for (AvailabilityRule rule : rules) {
+            if (rule.getDayOfWeek() == null || rule.getDayOfWeek() < 1 || rule.getDayOfWeek() > 7
+                    || rule.getStartTime() == null || rule.getEndTime() == null
+                    || !rule.getStartTime().isBefore(rule.getEndTime())) {
+                throw new IllegalArgumentException("Cada bloque debe tener un día entre 1 y 7 y una hora de inicio anterior a la de término.");
+            }
+            if (!isAligned(rule.getStartTime()) || !isAligned(rule.getEndTime())) {
+                throw new IllegalArgumentException("Las horas deben coincidir con bloques de " + slotMinutes + " minutos.");
+            }
+
+            AvailabilityRule newRule = new AvailabilityRule();
+            newRule.setDayOfWeek(rule.getDayOfWeek());
+            newRule.setStartTime(rule.getStartTime());
+            newRule.setEndTime(rule.getEndTime());
+            newRule.setDoctor(userRepository.getReferenceById(doctorId));
+            newRules.add(newRule);
+        }
+
+        availabilityRuleRepository.deleteByDoctor(doctorId);
+        List<AvailabilityRule> savedRules = availabilityRuleRepository.saveAll(newRules);
+
+        BitSet weekly = weeklyMask(savedRules);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                DoctorSlots slots = index.doctors.get(doctorId);
+                if (slots != null) {
+                    slots.weekly = weekly;
+                }
+            }
+        });
+        return savedRules;
+    }
+
+    @Override
+    public void doctorChanged(Long doctorId, Long specialtyId) {
+        if (doctorId == null) {
+            return;
+        }
+        index.doctors.computeIfAbsent(doctorId, id -> new DoctorSlots(specialtyId)).specialtyId = specialtyId;
+    }
+
+    @Override
+    public void doctorRemoved(Long doctorId) {
+        index.doctors.remove(doctorId);
+    }
+
+    private BitSet weeklyMask(List<AvailabilityRule> rules) {
+        BitSet weekly = new BitSet(slotsPerWeek());
+        for (AvailabilityRule rule : rules) {
+            int day = (rule.getDayOfWeek() - 1) * slotsPerDay();
+            int from = rule.getStartTime().toSecondOfDay() / 60 / slotMinutes;
+            int to = (rule.getEndTime().toSecondOfDay() / 60 + slotMinutes - 1) / slotMinutes;
+            weekly.set(day + from, day + to);
+        }
+        return weekly;
+    }
+
+    private boolean isAligned(LocalTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0 && (time.getHour() * 60 + time.getMinute()) % slotMinutes == 0;
+    }
+
+    private int weekIndex(LocalDate base, int offset) {
+        return ((base.getDayOfWeek().getValue() - 1) * slotsPerDay() + offset) % slotsPerWeek();
+    }
+
+    private long floorOffset(LocalDateTime start, LocalDateTime time) {
+        return Math.floorDiv(Duration.between(start, time).getSeconds(), slotMinutes * 60L);
+    }
+
+    private long ceilOffset(LocalDateTime start, LocalDateTime time) {
+        long slotSeconds = slotMinutes * 60L;
+        return Math.floorDiv(Duration.between(start, time).getSeconds() + slotSeconds - 1, slotSeconds);
+    }
+
+    private int slotsPerDay() {
+        return MINUTES_PER_DAY / slotMinutes;
+    }
+
+    private int slotsPerWeek() {
+        return 7 * slotsPerDay();
+    }
+
+    private long horizonSlots() {
+        return (long) horizonDays * slotsPerDay();
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneId.of(zone));
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(ZoneId.of(zone));
+    }
+
+    private static final class SlotIndex {
+
+        private final LocalDate base;
+        private final Map<Long, DoctorSlots> doctors;
+
+        private SlotIndex(LocalDate base, Map<Long, DoctorSlots> doctors) {
+            this.base = base;
+            this.doctors = doctors;
+        }
+    }
+
+    //El horario semanal se reemplaza completo (nunca se modifica una vez publicado); los bloques reservados
+    //se protegen con un lock por doctor (ReentrantLock y no synchronized, para no fijar hilos virtuales)
+    private static final class DoctorSlots {
+
+        private volatile Long specialtyId;
+        private volatile BitSet weekly = new BitSet();
+        private final BitSet booked = new BitSet();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private DoctorSlots(Long specialtyId) {
+            this.specialtyId = specialtyId;
+        }
+
+        private boolean tryReserve(int offset) {
+            lock.lock();
+            try {
+                if (booked.get(offset)) {
+                    return false;
+                }
+                booked.set(offset);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(int offset) {
+            lock.lock();
+            try {
+                booked.clear(offset);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int[] free(int weekStart, int slotsPerWeek, int from, int to, int limit) {
+            BitSet mask = weekly;
+            if (mask.isEmpty()) {
+                return new int[0];
+            }
+            int[] found = new int[limit];
+            int count = 0;
+            lock.lock();
+            try {
+                for (int offset = booked.nextClearBit(from); offset < to && count < limit; offset = booked.nextClearBit(offset + 1)) {
+                    if (mask.get((weekStart + offset) % slotsPerWeek)) {
+                        found[count++] = offset;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return Arrays.copyOf(found, count);
+        }
+    }
+}
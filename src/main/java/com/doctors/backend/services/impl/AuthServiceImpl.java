@@ -4,7 +4,13 @@ import com.doctors.backend.entity.User;
 import com.doctors.backend.models.AuthResponse;
 import com.doctors.backend.models.AuthenticationRequest;
 import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BoundedPasswordEncoder;
+import com.doctors.backend.security.HashingOverloadException;
 import com.doctors.backend.security.JwtService;
+import com.doctors.backend.security.RefreshTokenService;
+import com.doctors.backend.security.RevokedTokenStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import com.doctors.backend.services.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,6 +29,15 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RevokedTokenStore revokedTokenStore;
+
     @Override
     public AuthResponse login(AuthenticationRequest request) {
         AuthResponse token = new AuthResponse();
@@ -34,16 +49,64 @@ public class AuthServiceImpl implements AuthService {
                 )
         );
 
-        User user = userRepository.findByEmail(request.getEmail());
+        User user = userRepository.findByNaturalEmail(request.getEmail());
+        rehashIfNeeded(user, request.getPassword());
 
         String jwt = jwtService.generateToken(user);
         token.setToken(jwt);
+        token.setRefreshToken(refreshTokenService.issue(user.getId()));
 
         return token;
     }
 
+    @Override
+    public AuthResponse refresh(String refreshToken) {
+        Long userId = refreshTokenService.consume(refreshToken);
+        if (userId == null) {
+            return null;
+        }
+
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        AuthResponse token = new AuthResponse();
+        token.setToken(jwtService.generateToken(user));
+        token.setRefreshToken(refreshTokenService.issue(userId));
+        return token;
+    }
+
+    @Override
+    public void logout(String refreshToken, String accessToken) {
+        refreshTokenService.consume(refreshToken);
+
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtService.extractAllClaims(accessToken);
+                revokedTokenStore.revoke(claims.getId(), claims.getExpiration().getTime());
+            } catch (JwtException | IllegalArgumentException e) {
+                //Un access token invalido o vencido no necesita revocarse
+            }
+        }
+    }
+
+    //Si cambio el costo configurado para el rol del usuario, aprovechamos que tenemos la contraseña en claro para regenerar el hash
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String role = user.getRoles() == null || user.getRoles().isEmpty() ? null : user.getRoles().get(0).getName();
+        if (!passwordEncoder.upgradeEncoding(user.getPassword(), role)) {
+            return;
+        }
+        try {
+            user.setPassword(passwordEncoder.encode(rawPassword, role));
+            userRepository.save(user);
+        } catch (HashingOverloadException e) {
+            //Bajo carga se deja para el proximo login
+        }
+    }
+
     @Override
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userRepository.findByNaturalEmail(email);
     }
 }
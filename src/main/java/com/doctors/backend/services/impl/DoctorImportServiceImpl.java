@@ -0,0 +1,291 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Role;
+import com.doctors.backend.entity.Specialty;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorImportReport;
+import com.doctors.backend.repositories.RoleRepository;
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BoundedPasswordEncoder;
+import com.doctors.backend.security.HashingOverloadException;
+import com.doctors.backend.services.AppointmentService;
+import com.doctors.backend.services.DoctorImportService;
+import com.doctors.backend.services.DoctorSearchService;
+import com.doctors.backend.services.DoctorService;
+import com.doctors.backend.services.EmailAlreadyRegisteredException;
+import com.doctors.backend.services.EmailRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Importacion masiva de doctores desde CSV (con encabezado) o NDJSON. El cuerpo se lee fila a fila sin cargarlo
+ * completo en memoria; cada fila se valida con las mismas restricciones de User y las filas validas se procesan
+ * en lotes: los hashes BCrypt se calculan en paralelo en el pool acotado y cada lote se inserta en una transaccion.
+ * Si un lote falla por un email tomado entre la validacion y el insert, se reintenta fila por fila para informar
+ * exactamente que filas fallaron.
+ */
+@Service
+public class DoctorImportServiceImpl implements DoctorImportService {
+
+    private static final String ROLE_DOCTOR = "ROLE_DOCTOR";
+
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EmailRegistry emailRegistry;
+
+    @Autowired
+    private DoctorSearchService searchService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${doctors.import.batch-size:100}")
+    private int batchSize;
+
+    @Value("${doctors.import.max-rows:5000}")
+    private int maxRows;
+
+    @Override
+    public DoctorImportReport importCsv(InputStream input) throws IOException {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<User> rows = csvMapper.readerFor(User.class).with(schema).readValues(input)) {
+            return importRows(rows);
+        }
+    }
+
+    @Override
+    public DoctorImportReport importNdjson(InputStream input) throws IOException {
+        try (MappingIterator<User> rows = objectMapper.readerFor(User.class).readValues(input)) {
+            return importRows(rows);
+        }
+    }
+
+    private DoctorImportReport importRows(MappingIterator<User> rows) {
+        DoctorImportReport report = new DoctorImportReport();
+        ImportContext context = new ImportContext(roleRepository.findByName(ROLE_DOCTOR), doctorService.findAllSpecialties());
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+
+        int row = 0;
+        while (true) {
+            User input;
+            try {
+                if (!rows.hasNextValue()) {
+                    break;
+                }
+                row++;
+                if (row > maxRows) {
+                    report.addError(row, null, List.of("Se alcanzó el máximo de " + maxRows + " filas por importación; el resto no se procesó."));
+                    break;
+                }
+                report.addRow();
+                input = rows.nextValue();
+            } catch (JsonMappingException e) {
+                //MappingIterator se resincroniza solo al inicio de la siguiente fila
+                report.addError(row, null, List.of("Fila con formato inválido: " + e.getOriginalMessage()));
+                continue;
+            } catch (IOException e) {
+                report.addError(row, null, List.of("No se pudo seguir leyendo el archivo: " + e.getMessage()));
+                break;
+            }
+
+            PendingRow pending = validate(row, input, context, report);
+            if (pending != null) {
+                batch.add(pending);
+            }
+            if (batch.size() >= batchSize) {
+                flush(batch, report);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch, report);
+        }
+        return report;
+    }
+
+    private PendingRow validate(int row, User input, ImportContext context, DoctorImportReport report) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<User> violation : validator.validate(input)) {
+            errors.add(violation.getMessage());
+        }
+        if (input.getPassword() == null || input.getPassword().isBlank()) {
+            errors.add("La contraseña es obligatoria.");
+        }
+
+        Specialty specialty = null;
+        if (input.getSpecialty() != null) {
+            specialty = context.resolveSpecialty(input.getSpecialty());
+            if (specialty == null && !context.isBlank(input.getSpecialty())) {
+                errors.add("La especialidad no existe.");
+            }
+        }
+
+        String email = input.getEmail();
+        if (email != null && !email.isBlank()) {
+            if (!context.seenEmails.add(email.trim().toLowerCase(Locale.ROOT))) {
+                errors.add("El email está repetido en el archivo.");
+            } else if (emailRegistry.isRegistered(email)) {
+                errors.add("El email ya está en uso.");
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            report.addError(row, email, errors);
+            return null;
+        }
+
+        User doctor = new User();
+        doctor.setFirstname(input.getFirstname());
+        doctor.setLastname(input.getLastname());
+        doctor.setEmail(email.trim());
+        doctor.setPhone(input.getPhone());
+        doctor.setSex(input.getSex());
+        doctor.setSpecialty(specialty);
+        doctor.setRoles(new ArrayList<>(context.roles));
+        doctor.setUserType(User.TYPE_DOCTOR);
+        return new PendingRow(row, doctor, input.getPassword());
+    }
+
+    private void flush(List<PendingRow> batch, DoctorImportReport report) {
+        List<String> hashes;
+        try {
+            hashes = passwordEncoder.encodeAll(batch.stream().map(pending -> pending.rawPassword).toList(), ROLE_DOCTOR);
+        } catch (HashingOverloadException e) {
+            batch.forEach(pending -> report.addError(pending.row, pending.doctor.getEmail(), List.of(e.getMessage())));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).doctor.setPassword(hashes.get(i));
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<PendingRow> saved = new ArrayList<>(batch.size());
+        try {
+            transaction.executeWithoutResult(status -> {
+                userRepository.saveAll(batch.stream().map(pending -> pending.doctor).toList());
+                userRepository.flush();
+                entityManager.clear();
+            });
+            saved.addAll(batch);
+        } catch (DataIntegrityViolationException e) {
+            for (PendingRow pending : batch) {
+                pending.doctor.setId(null);
+                try {
+                    transaction.executeWithoutResult(status -> userRepository.saveAndFlush(pending.doctor));
+                    saved.add(pending);
+                } catch (DataIntegrityViolationException rowError) {
+                    pending.doctor.setId(null);
+                    report.addError(pending.row, pending.doctor.getEmail(), List.of(describe(rowError)));
+                }
+            }
+        }
+
+        for (PendingRow pending : saved) {
+            User doctor = pending.doctor;
+            emailRegistry.add(doctor.getEmail());
+            searchService.index(doctor);
+            appointmentService.doctorChanged(doctor.getId(), doctor.getSpecialty() == null ? null : doctor.getSpecialty().getId());
+        }
+        report.addImported(saved.size());
+    }
+
+    //Solo el indice unico del email se informa como email en uso; otras restricciones (largo, llave foranea) se
+    //informan con el mensaje de la base de datos
+    private String describe(DataIntegrityViolationException error) {
+        if (EmailAlreadyRegisteredException.isEmailConflict(error)) {
+            return "El email ya está en uso.";
+        }
+        return "No se pudo guardar la fila: " + error.getMostSpecificCause().getMessage();
+    }
+
+    private static final class PendingRow {
+
+        private final int row;
+        private final User doctor;
+        private final String rawPassword;
+
+        private PendingRow(int row, User doctor, String rawPassword) {
+            this.row = row;
+            this.doctor = doctor;
+            this.rawPassword = rawPassword;
+        }
+    }
+
+    private static final class ImportContext {
+
+        private final List<Role> roles;
+        private final Map<Long, Specialty> specialtiesById = new HashMap<>();
+        private final Map<String, Specialty> specialtiesByName = new HashMap<>();
+        private final Set<String> seenEmails = new HashSet<>();
+
+        private ImportContext(List<Role> roles, List<Specialty> specialties) {
+            this.roles = roles;
+            for (Specialty specialty : specialties) {
+                specialtiesById.put(specialty.getId(), specialty);
+                if (specialty.getName() != null) {
+                    specialtiesByName.put(specialty.getName().trim().toLowerCase(Locale.ROOT), specialty);
+                }
+            }
+        }
+
+        private boolean isBlank(Specialty specialty) {
+            return specialty.getId() == null && (specialty.getName() == null || specialty.getName().isBlank());
+        }
+
+        private Specialty resolveSpecialty(Specialty specialty) {
+            if (specialty.getId() != null) {
+                return specialtiesById.get(specialty.getId());
+            }
+            if (isBlank(specialty)) {
+                return null;
+            }
+            return specialtiesByName.get(specialty.getName().trim().toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Specialty;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.services.DoctorSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido en memoria sobre nombre, apellido y especialidad de los doctores.
+ * Los terminos se guardan sin acentos y en minusculas, y se buscan por prefijo.
+ * Tambien mantiene la cantidad de doctores por especialidad, que alimenta los filtros del directorio.
+ * Las busquedas no toman bloqueo; las escrituras se serializan para que quitar y volver a agregar un doctor
+ * sea un solo paso y los conteos no se desfasen. La reconstruccion arma un indice aparte y lo publica de una vez.
+ */
+@Service
+public class DoctorSearchServiceImpl implements DoctorSearchService {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    //ReentrantLock y no synchronized: no fija el hilo virtual de la peticion
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Index index = new Index();
+    //Doctores modificados mientras se reconstruye; se copian del indice vigente antes de publicar el nuevo
+    private Set<Long> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Override
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Index next = new Index();
+        boolean loaded = false;
+        try {
+            userRepository.findDoctorSummaries().forEach(next::add);
+            loaded = true;
+        } finally {
+            writeLock.lock();
+            try {
+                if (loaded) {
+                    Index live = index;
+                    for (Long id : changedDuringRebuild) {
+                        next.remove(id);
+                        DoctorSummary current = live.documents.get(id);
+                        if (current != null) {
+                            next.add(current);
+                        }
+                    }
+                    index = next;
+                }
+                changedDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<DoctorSummary> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Index current = index;
+        //Todos los terminos deben coincidir (AND); empezamos por el termino con menos resultados
+        List<Set<Long>> matches = new ArrayList<>();
+        for (String term : terms) {
+            Set<Long> ids = current.prefixMatches(term);
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            matches.add(ids);
+        }
+        matches.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+
+        return result.stream()
+                .map(current.documents::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(DoctorSummary::getLastname, Comparator.nullsLast(String::compareToIgnoreCase))
+                        .thenComparing(DoctorSummary::getFirstname, Comparator.nullsLast(String::compareToIgnoreCase)))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void index(User doctor) {
+        if (doctor == null || doctor.getId() == null) {
+            return;
+        }
+        DoctorSummary summary = null;
+        if (User.TYPE_DOCTOR.equals(doctor.getUserType())) {
+            Specialty specialty = doctor.getSpecialty();
+            summary = new DoctorSummary(doctor.getId(), doctor.getFirstname(), doctor.getLastname(),
+                    specialty == null ? null : specialty.getId(), specialty == null ? null : specialty.getName(),
+                    doctor.getPhoto(), doctor.getPhone());
+        }
+
+        writeLock.lock();
+        try {
+            Index current = index;
+            current.remove(doctor.getId());
+            if (summary != null) {
+                current.add(summary);
+            }
+            markChanged(doctor.getId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            index.remove(id);
+            markChanged(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, Integer> countBySpecialty() {
+        return Collections.unmodifiableMap(index.specialtyCounts);
+    }
+
+    private void markChanged(Long id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Estado completo del indice. Solo se modifica con writeLock tomado o antes de publicarse,
+     * asi que las listas de terminos vacias se pueden quitar sin competir con un add.
+     */
+    private static final class Index {
+
+        private final ConcurrentNavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Long, DoctorSummary> documents = new ConcurrentHashMap<>();
+        private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+        private final Map<Long, Integer> specialtyCounts = new ConcurrentHashMap<>();
+
+        private void add(DoctorSummary doctor) {
+            Set<String> terms = new HashSet<>();
+            terms.addAll(tokenize(doctor.getFirstname()));
+            terms.addAll(tokenize(doctor.getLastname()));
+            terms.addAll(tokenize(doctor.getSpecialty()));
+
+            documents.put(doctor.getId(), doctor);
+            if (doctor.getSpecialtyId() != null) {
+                specialtyCounts.merge(doctor.getSpecialtyId(), 1, Integer::sum);
+            }
+            documentTerms.put(doctor.getId(), terms);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(doctor.getId());
+            }
+        }
+
+        private void remove(Long id) {
+            DoctorSummary removed = documents.remove(id);
+            if (removed != null && removed.getSpecialtyId() != null) {
+                specialtyCounts.computeIfPresent(removed.getSpecialtyId(), (key, count) -> count > 1 ? count - 1 : null);
+            }
+            Set<String> terms = documentTerms.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term, ids);
+                    }
+                }
+            }
+        }
+
+        private Set<Long> prefixMatches(String prefix) {
+            Set<Long> ids = new HashSet<>();
+            postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    .values()
+                    .forEach(ids::addAll);
+            return ids;
+        }
+    }
+}
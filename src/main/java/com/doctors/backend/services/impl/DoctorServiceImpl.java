@@ -3,18 +3,48 @@ package com.doctors.backend.services.impl;
 import com.doctors.backend.entity.Message;
 import com.doctors.backend.entity.Specialty;
 import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DirectoryCursor;
+import com.doctors.backend.models.DirectorySlice;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.models.InboxSlice;
+import com.doctors.backend.models.MessageNotification;
+import com.doctors.backend.models.SpecialtyFacet;
+import com.doctors.backend.models.SpecialtySnapshot;
 import com.doctors.backend.repositories.MessageRepository;
 import com.doctors.backend.repositories.RoleRepository;
 import com.doctors.backend.repositories.SpecialtyRepository;
 import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BoundedPasswordEncoder;
+import com.doctors.backend.security.JwtTokenCache;
+import com.doctors.backend.security.TokenVersionService;
+import com.doctors.backend.services.AppointmentService;
+import com.doctors.backend.services.DoctorSearchService;
 import com.doctors.backend.services.DoctorService;
+import com.doctors.backend.services.EmailAlreadyRegisteredException;
+import com.doctors.backend.services.EmailRegistry;
+import com.doctors.backend.services.MessageNotifier;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class DoctorServiceImpl implements DoctorService {
@@ -32,16 +62,81 @@ public class DoctorServiceImpl implements DoctorService {
     private SpecialtyRepository specialtyRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenCache tokenCache;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private DoctorSearchService searchService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private EmailRegistry emailRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MessageNotifier messageNotifier;
+
+    private volatile SpecialtySnapshot specialtySnapshot;
 
     @Override
     public List<User> getDoctors(){
-        return doctorRepo.findAll();
+        return doctorRepo.findByUserType(User.TYPE_DOCTOR);
     }
 
     @Override
     public Page<User> findAll(Pageable pageable) {
-        return doctorRepo.findAll(pageable);
+        return doctorRepo.findByUserType(User.TYPE_DOCTOR, pageable);
+    }
+
+    @Override
+    public List<DoctorSummary> getDoctorSummaries() {
+        return doctorRepo.findDoctorSummaries();
+    }
+
+    @Override
+    public Slice<DoctorSummary> getDoctorSummaries(Pageable pageable) {
+        return doctorRepo.findDoctorSummaries(pageable);
+    }
+
+    @Override
+    public DirectorySlice getDoctorSummariesAfter(DirectoryCursor cursor, int size) {
+        //Siempre se pide la primera "pagina" a partir del cursor, asi el costo no depende de la profundidad
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<DoctorSummary> slice;
+        if (cursor == null) {
+            slice = doctorRepo.findDoctorSummariesFirst(pageable);
+        } else if (cursor.getSpecialtyId() == null) {
+            slice = doctorRepo.findDoctorSummariesAfterNoSpecialty(cursor.getLastname(), cursor.getId(), pageable);
+        } else {
+            slice = doctorRepo.findDoctorSummariesAfter(cursor.getSpecialtyId(), cursor.getLastname(), cursor.getId(), pageable);
+        }
+        return toDirectorySlice(slice);
+    }
+
+    @Override
+    public DirectorySlice getDoctorSummariesBySpecialty(Long specialtyId, DirectoryCursor cursor, int size) {
+        Slice<DoctorSummary> slice = doctorRepo.findDoctorSummariesBySpecialty(specialtyId,
+                cursor == null ? null : cursor.getLastname(), cursor == null ? null : cursor.getId(), PageRequest.of(0, size));
+        return toDirectorySlice(slice);
+    }
+
+    private DirectorySlice toDirectorySlice(Slice<DoctorSummary> slice) {
+        DirectoryCursor next = null;
+        if (slice.hasNext()) {
+            DoctorSummary last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = new DirectoryCursor(last.getSpecialtyId(), last.getLastname(), last.getId());
+        }
+
+        return new DirectorySlice(slice.getContent(), slice.hasNext(), next);
     }
 
 
@@ -52,49 +147,143 @@ public class DoctorServiceImpl implements DoctorService {
 
     @Override
     public User registerDoctor(User doctor) {
+        Specialty specialty = resolveSpecialty(doctor.getSpecialty());
+        //Un duplicado evidente se rechaza antes de gastar un hash bcrypt; la garantia la da el indice unico al insertar
+        if (emailRegistry.isRegistered(doctor.getEmail())) {
+            throw new EmailAlreadyRegisteredException();
+        }
         User newDoctor = new User();
 
         newDoctor.setFirstname(doctor.getFirstname());
         newDoctor.setLastname(doctor.getLastname());
         newDoctor.setEmail(doctor.getEmail());
-        newDoctor.setPassword(passwordEncoder.encode(doctor.getPassword()));
+        newDoctor.setPassword(passwordEncoder.encode(doctor.getPassword(), "ROLE_DOCTOR"));
         newDoctor.setPhoto(doctor.getPhoto());
         newDoctor.setPhone(doctor.getPhone());
         newDoctor.setSex(doctor.getSex());
-        newDoctor.setSpecialty(doctor.getSpecialty());
+        newDoctor.setSpecialty(specialty);
         newDoctor.setRoles(roleRepo.findByName("ROLE_DOCTOR"));
+        newDoctor.setUserType(User.TYPE_DOCTOR);
 
-        return doctorRepo.save(newDoctor);
+        User savedDoctor = saveUnique(newDoctor);
+        emailRegistry.add(savedDoctor.getEmail());
+        searchService.index(savedDoctor);
+        appointmentService.doctorChanged(savedDoctor.getId(),
+                savedDoctor.getSpecialty() == null ? null : savedDoctor.getSpecialty().getId());
+        return savedDoctor;
     }
 
     @Override
     public User updatedDoctor(User doctor, Long id) {
         User updatedDoctor = doctorRepo.findById(id).orElse(null);
+        String previousEmail = updatedDoctor.getEmail();
+        tokenCache.evictUser(previousEmail);
 
         updatedDoctor.setFirstname(doctor.getFirstname());
         updatedDoctor.setLastname(doctor.getLastname());
         updatedDoctor.setEmail(doctor.getEmail());
         updatedDoctor.setPhoto(doctor.getPhoto());
         updatedDoctor.setPhone(doctor.getPhone());
-        updatedDoctor.setSpecialty(doctor.getSpecialty());
-        return doctorRepo.save(updatedDoctor);
+        updatedDoctor.setSpecialty(resolveSpecialty(doctor.getSpecialty()));
+
+        User savedDoctor = saveUnique(updatedDoctor);
+        emailRegistry.add(savedDoctor.getEmail());
+        //Si cambio el email, los tokens emitidos con el email anterior dejan de ser validos
+        if (previousEmail != null && !previousEmail.equals(savedDoctor.getEmail())) {
+            tokenVersionService.revoke(id, previousEmail);
+        }
+        searchService.index(savedDoctor);
+        appointmentService.doctorChanged(savedDoctor.getId(),
+                savedDoctor.getSpecialty() == null ? null : savedDoctor.getSpecialty().getId());
+        return savedDoctor;
     }
 
 
     @Override
     public Boolean existsByEmail(String email) {
-        return doctorRepo.existsByEmail(email);
+        return emailRegistry.isRegistered(email);
+    }
+
+    //Un solo insert/update: si falla por el indice unico del email se informa como conflicto
+    private User saveUnique(User user) {
+        try {
+            return doctorRepo.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (EmailAlreadyRegisteredException.isEmailConflict(e)) {
+                throw new EmailAlreadyRegisteredException();
+            }
+            throw e;
+        }
     }
 
 
                                 //specialties
     @Override
     public List<Specialty> findAllSpecialties(){
-        return specialtyRepository.findAll();
+        return getSpecialtySnapshot().getSpecialties();
+    }
+
+    @Override
+    public SpecialtySnapshot getSpecialtySnapshot() {
+        SpecialtySnapshot snapshot = specialtySnapshot;
+        if (snapshot == null) {
+            refreshSpecialties();
+            snapshot = specialtySnapshot;
+        }
+        return snapshot;
+    }
+
+    //Los conteos salen del agregado que mantiene el indice de busqueda, no de un GROUP BY por solicitud
+    @Override
+    public List<SpecialtyFacet> getSpecialtyFacets() {
+        Map<Long, Integer> counts = searchService.countBySpecialty();
+        List<SpecialtyFacet> facets = new ArrayList<>();
+        for (Specialty specialty : getSpecialtySnapshot().getSpecialties()) {
+            facets.add(new SpecialtyFacet(specialty.getId(), specialty.getName(), counts.getOrDefault(specialty.getId(), 0)));
+        }
+        return facets;
+    }
+
+    //La especialidad puede llegar como {"id": 1} o solo con el nombre; siempre se enlaza a una del catalogo
+    private Specialty resolveSpecialty(Specialty specialty) {
+        if (specialty == null) {
+            return null;
+        }
+        if (specialty.getId() == null && (specialty.getName() == null || specialty.getName().isBlank())) {
+            return null;
+        }
+
+        Specialty resolved = specialty.getId() != null
+                ? specialtyRepository.findById(specialty.getId()).orElse(null)
+                : specialtyRepository.findFirstByName(specialty.getName().trim());
+        if (resolved == null) {
+            throw new IllegalArgumentException("La especialidad no existe.");
+        }
+        return resolved;
+    }
+
+    //Recarga periodica por si las especialidades se modifican directamente en la base de datos;
+    //el snapshot solo se reemplaza si el contenido cambio
+    @Override
+    @Scheduled(fixedDelayString = "${specialties.refresh-ms:300000}", initialDelayString = "${specialties.refresh-ms:300000}")
+    public void refreshSpecialties() {
+        List<Specialty> specialties = specialtyRepository.findAll();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(specialties);
+            SpecialtySnapshot current = specialtySnapshot;
+            if (current == null || !Arrays.equals(current.getJson(), json)) {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                String etag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+                specialtySnapshot = new SpecialtySnapshot(specialties, json, etag);
+            }
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo generar el catalogo de especialidades.", e);
+        }
     }
 
                                 //Messages (Form)
     @Override
+    @Transactional
     public Message saveMessage(Message message, User user){
         Message newMessage = new Message();
 
@@ -104,17 +293,68 @@ public class DoctorServiceImpl implements DoctorService {
         newMessage.setReason(message.getReason());
         newMessage.setMessage(message.getMessage());
         newMessage.setUser(user);
+        newMessage.setRead(false);
+
+        Message savedMessage = messageRepository.save(newMessage);
+        if (user != null) {
+            doctorRepo.addUnreadMessages(user.getId(), 1);
+
+            String doctorEmail = user.getEmail();
+            MessageNotification notification = new MessageNotification(savedMessage.getFirstname(),
+                    savedMessage.getLastname(), savedMessage.getReason(), savedMessage.getCreatedAt());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    messageNotifier.notifyNewMessage(doctorEmail, notification);
+                }
+            });
+        }
+        return savedMessage;
+    }
+
+    @Override
+    public String findEmailById(Long id) {
+        return doctorRepo.findEmailById(id);
+    }
+
+    @Override
+    public InboxSlice getInbox(Long doctorId, String reason, Date from, Date to, Date beforeCreatedAt, Long beforeId, int size) {
+        Slice<Message> slice = messageRepository.findInbox(doctorId, reason, from, to, beforeCreatedAt, beforeId, PageRequest.of(0, size));
+
+        //El cursor se devuelve en epoch millis, el mismo formato que recibe beforeCreatedAt
+        Long nextCreatedAt = null;
+        Long nextId = null;
+        if (slice.hasNext()) {
+            Message last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCreatedAt = last.getCreatedAt().getTime();
+            nextId = last.getId();
+        }
 
-        return messageRepository.save(newMessage);
+        Integer unread = doctorRepo.findUnreadMessages(doctorId);
+        return new InboxSlice(slice.getContent(), slice.hasNext(), nextCreatedAt, nextId, unread == null ? 0 : unread);
+    }
+
+    @Override
+    @Transactional
+    public boolean markMessageRead(Long doctorId, Long messageId) {
+        if (messageRepository.markRead(messageId, doctorId) == 0) {
+            return false;
+        }
+        doctorRepo.addUnreadMessages(doctorId, -1);
+        return true;
     }
 
     @Override
     public void deleteDoctor(Long id) {
+        String email = doctorRepo.findEmailById(id);
         doctorRepo.deleteById(id);
+        tokenVersionService.forget(id, email);
+        searchService.remove(id);
+        appointmentService.doctorRemoved(id);
     }
 
     @Override
     public User findByEmail(String email){
-        return doctorRepo.findByEmail(email);
+        return doctorRepo.findByNaturalEmail(email);
     }
 }
@@ -0,0 +1,110 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BloomFilter;
+import com.doctors.backend.services.EmailRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Filtro de Bloom con los emails registrados, para responder sin consultar la base de datos que un email esta libre.
+ * Ante un posible positivo se confirma con la base de datos (indice unico uk_users_email). Los emails de usuarios
+ * borrados o modificados siguen en el filtro hasta la siguiente reconstruccion; eso solo agrega consultas, nunca
+ * responde "libre" para un email en uso.
+ */
+@Service
+public class EmailRegistryImpl implements EmailRegistry {
+
+    private static final int HASHES = 5;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${users.email-filter.bits:8388608}")
+    private int bits;
+
+    //add y el cambio de filtro en rebuild se hacen bajo este lock: un email agregado durante la reconstruccion
+    //queda siempre en el filtro que termina vigente
+    //ReentrantLock y no synchronized: add corre en el hilo (posiblemente virtual) del registro
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private BloomFilter building;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${users.email-filter.rebuild-ms:3600000}", initialDelayString = "${users.email-filter.rebuild-ms:3600000}")
+    public void rebuild() {
+        BloomFilter next = new BloomFilter(bits, HASHES);
+        //Los registros confirmados mientras se lee la tabla tambien se agregan al filtro nuevo (ver add)
+        lock.lock();
+        try {
+            building = next;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            userRepository.findAllEmails().forEach(email -> next.add(normalize(email)));
+            lock.lock();
+            try {
+                filter = next;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            lock.lock();
+            try {
+                building = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRegistered(String email) {
+        if (email == null || email.isBlank()) {
+            return false;
+        }
+        //Hasta que el filtro este cargado se consulta siempre la base de datos
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(normalize(email))) {
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    @Override
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        lock.lock();
+        try {
+            if (filter != null) {
+                filter.add(key);
+            }
+            if (building != null) {
+                building.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //La columna email usa una collation que no distingue mayusculas, el filtro tampoco debe hacerlo
+    private String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
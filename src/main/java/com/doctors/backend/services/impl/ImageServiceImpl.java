@@ -0,0 +1,261 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.services.ImageService;
+import com.doctors.backend.services.MediaStore;
+import com.doctors.backend.services.ThumbnailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sirve las imagenes subidas sin pasar los bytes por el heap: usa sendfile de Tomcat cuando el conector
+ * lo soporta y FileChannel.transferTo en caso contrario. Los nombres son unicos por contenido, asi que
+ * las respuestas se marcan como inmutables. Solo los tipos de imagen conocidos se muestran inline; cualquier
+ * otro archivo (subidas antiguas con otra extension) se entrega como descarga y siempre con nosniff.
+ */
+@Service
+public class ImageServiceImpl implements ImageService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String DEFAULT_IMAGE_CACHE = "public, max-age=3600";
+    private static final String FALLBACK_CACHE = "public, max-age=60";
+
+    private static final Map<String, String> IMAGE_TYPES = Map.of(
+            "png", MediaType.IMAGE_PNG_VALUE,
+            "jpg", MediaType.IMAGE_JPEG_VALUE,
+            "jpeg", MediaType.IMAGE_JPEG_VALUE,
+            "gif", MediaType.IMAGE_GIF_VALUE,
+            "webp", "image/webp");
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    private final Map<String, byte[]> defaultImages = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void loadDefaultImages() throws IOException {
+        for (String name : new String[]{"user_icon.png", "user-icon.png"}) {
+            try (InputStream in = new ClassPathResource("static/images/" + name).getInputStream()) {
+                defaultImages.put(name, in.readAllBytes());
+            }
+        }
+    }
+
+    @Override
+    public void serve(String imageName, Integer size, String defaultImage, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path path = null;
+        try {
+            path = mediaStore.resolve(imageName);
+        } catch (InvalidPathException e) {
+            //Nombre invalido: se responde con la imagen por defecto
+        }
+
+        if (path == null || !Files.isRegularFile(path) || !Files.isReadable(path)) {
+            serveDefault(defaultImage, request, response);
+            return;
+        }
+
+        String tag = imageName;
+        String cacheControl = IMMUTABLE;
+        if (size != null && size > 0) {
+            Path variant = thumbnailService.findVariant(imageName, size);
+            if (variant != null) {
+                path = variant;
+                tag = imageName + "@" + variant.getParent().getFileName();
+            } else {
+                //La miniatura puede no estar generada todavia (o su tarea se descarto): se vuelve a encolar y la
+                //original no se cachea bajo la URL de la miniatura
+                thumbnailService.generateAsync(imageName);
+                cacheControl = FALLBACK_CACHE;
+            }
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + tag + "-" + length + "\"";
+
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        long[] range = parseRange(request, etag, length);
+        if (range != null && range.length == 0) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range != null) {
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        String contentType = imageType(imageName);
+        if (contentType != null) {
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + imageName + "\"");
+        } else {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + imageName + "\"");
+        }
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    private void serveDefault(String defaultImage, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        byte[] image = defaultImages.get(defaultImage);
+        String etag = "\"default-" + defaultImage + "-" + image.length + "\"";
+
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, DEFAULT_IMAGE_CACHE);
+
+        if (isNotModified(request, etag, -1)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaType.IMAGE_PNG_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + defaultImage + "\"");
+        response.setContentLength(image.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(image);
+        }
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve null si se debe enviar el archivo completo, un arreglo vacio si el rango no es satisfacible
+     * o {inicio, fin} para un unico rango. Los rangos multiples se ignoran y se envia el archivo completo.
+     */
+    private long[] parseRange(HttpServletRequest request, String etag, long length) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")) {
+            return null;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+            }
+
+            if (start >= length || start > end) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String imageType(String imageName) {
+        int dot = imageName.lastIndexOf('.');
+        return dot < 0 ? null : IMAGE_TYPES.get(imageName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,254 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.services.MediaStore;
+import com.doctors.backend.services.UnsupportedImageException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacen de imagenes direccionado por contenido: el nombre del archivo es el SHA-256 de sus bytes,
+ * de modo que dos subidas identicas comparten el mismo archivo. Se lleva un contador de referencias
+ * para no borrar una imagen que otro usuario sigue usando. Una subida queda pendiente hasta que la fila
+ * que la referencia se guarda (retain) o falla (discard); mover, contar y borrar un archivo se hace dentro de
+ * compute sobre su nombre, asi una subida y una liberacion simultaneas del mismo archivo no se pisan.
+ * Los contadores se cargan antes de que el servidor web acepte peticiones: una subida que llegara antes podria
+ * reemplazar la foto de un usuario y liberar un archivo que todavia no se estaba contando.
+ */
+@Service
+public class MediaStoreImpl implements MediaStore, SmartInitializingSingleton {
+
+    @Value("${media.uploads-dir:uploads}")
+    private String uploadsDir;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, References> references = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            loadReferences();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void loadReferences() throws IOException {
+        Files.createDirectories(root());
+        for (Object[] row : userRepository.countPhotoReferences()) {
+            int count = ((Number) row[1]).intValue();
+            references.compute((String) row[0], (name, current) -> {
+                References entry = current == null ? new References() : current;
+                entry.committed += count;
+                return entry;
+            });
+        }
+    }
+
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        Path root = root();
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+            //Copiamos el stream al archivo temporal y calculamos el hash en la misma pasada
+            try (InputStream in = file.getInputStream();
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            //La extension sale de los bytes y no del nombre original: solo se guardan imagenes conocidas
+            String extension = sniffExtension(temp);
+            if (extension == null) {
+                throw new UnsupportedImageException();
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + extension;
+            Path destination = root.resolve(name);
+
+            references.compute(name, (key, current) -> {
+                try {
+                    if (!Files.exists(destination)) {
+                        Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                References entry = current == null ? new References() : current;
+                entry.pending++;
+                return entry;
+            });
+            Files.deleteIfExists(temp);
+            return name;
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(temp);
+            throw new IllegalStateException(e);
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public void retain(String name) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        references.compute(name, (key, current) -> {
+            References entry = current == null ? new References() : current;
+            entry.pending = Math.max(0, entry.pending - 1);
+            entry.committed++;
+            return entry;
+        });
+    }
+
+    @Override
+    public void discard(String name) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        references.computeIfPresent(name, (key, entry) -> {
+            entry.pending = Math.max(0, entry.pending - 1);
+            return deleteIfUnused(key, entry);
+        });
+    }
+
+    @Override
+    public void release(String name) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+
+        //Un nombre que no se esta contando (foto anterior al contador, ruta ajena) nunca se borra
+        references.computeIfPresent(name, (key, entry) -> {
+            if (entry.committed == 0) {
+                return entry;
+            }
+            entry.committed--;
+            return deleteIfUnused(key, entry);
+        });
+    }
+
+    private References deleteIfUnused(String name, References entry) {
+        if (entry.committed > 0 || entry.pending > 0) {
+            return entry;
+        }
+        try {
+            Files.deleteIfExists(resolve(name));
+            deleteVariants(name);
+        } catch (IOException | InvalidPathException e) {
+            //Si no se puede borrar queda huerfano en disco, no es un error para el usuario
+        }
+        return null;
+    }
+
+    @Override
+    public Path resolveVariant(String name, int size) {
+        Path variants = variantsRoot();
+        Path path = variants.resolve(String.valueOf(size)).resolve(name).normalize();
+        if (!path.startsWith(variants)) {
+            throw new InvalidPathException(name, "Ruta fuera del directorio de imagenes.");
+        }
+        return path;
+    }
+
+    private void deleteVariants(String name) throws IOException {
+        Path variants = variantsRoot();
+        if (!Files.isDirectory(variants)) {
+            return;
+        }
+        try (DirectoryStream<Path> sizes = Files.newDirectoryStream(variants)) {
+            for (Path size : sizes) {
+                Files.deleteIfExists(size.resolve(name));
+            }
+        }
+    }
+
+    private Path variantsRoot() {
+        return root().resolve("variants");
+    }
+
+    @Override
+    public Path resolve(String name) {
+        Path root = root();
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new InvalidPathException(name, "Ruta fuera del directorio de imagenes.");
+        }
+        return path;
+    }
+
+    private Path root() {
+        return Paths.get(uploadsDir).toAbsolutePath().normalize();
+    }
+
+    private String sniffExtension(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read >= 8 && startsWith(header, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return ".png";
+        }
+        if (read >= 3 && startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return ".jpg";
+        }
+        if (read >= 6 && (startsWith(header, 'G', 'I', 'F', '8', '7', 'a') || startsWith(header, 'G', 'I', 'F', '8', '9', 'a'))) {
+            return ".gif";
+        }
+        if (read >= 12 && startsWith(header, 'R', 'I', 'F', 'F')
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return ".webp";
+        }
+        return null;
+    }
+
+    private boolean startsWith(byte[] header, int... signature) {
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class References {
+
+        private int committed;
+        private int pending;
+    }
+}
@@ -0,0 +1,298 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Message;
+import com.doctors.backend.models.MessageNotification;
+import com.doctors.backend.services.MessageIngestionService;
+import com.doctors.backend.services.MessageNotifier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cola de escritura diferida para los mensajes del formulario de contacto. Las peticiones solo encolan;
+ * un hilo dedicado inserta los mensajes en lotes JDBC cuando se junta un lote o vence el intervalo.
+ * Si la cola esta llena se rechaza el mensaje para que el controlador responda 503. Un lote que falla se reintenta
+ * con espera creciente y luego fila por fila; lo que aun asi no se guarda se escribe como NDJSON en el archivo de
+ * mensajes no entregados para reprocesarlo a mano, de modo que ningun mensaje aceptado con 202 se pierde en silencio.
+ * Al apagar no se interrumpe al escritor: se deja de aceptar mensajes y se espera a que vacie la cola. Encolar y
+ * cerrar la entrada comparten un lock de lectura/escritura, asi ningun mensaje entra despues del vaciado final.
+ */
+@Service
+public class MessageIngestionServiceImpl implements MessageIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageIngestionServiceImpl.class);
+
+    private static final String INSERT_SQL = "insert into messages (firstname, lastname, email, reason, message, created_at, user_id, is_read) " +
+            "values (?, ?, ?, ?, ?, ?, ?, false)";
+
+    private static final String UNREAD_SQL = "update users set unread_messages = coalesce(unread_messages, 0) + ? where id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MessageNotifier messageNotifier;
+
+    @Value("${messages.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${messages.batch-size:200}")
+    private int batchSize;
+
+    @Value("${messages.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${messages.retry-attempts:4}")
+    private int retryAttempts;
+
+    @Value("${messages.retry-backoff-ms:250}")
+    private long retryBackoffMs;
+
+    @Value("${messages.dead-letter-file:messages-dead-letter.ndjson}")
+    private String deadLetterFile;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+    //Lectura: encolar (concurrente entre peticiones). Escritura: cerrar la entrada al apagar
+    private final ReadWriteLock intake = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::run, "message-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        //El escritor sale del poll a mas tardar en flushIntervalMs y vacia la cola; no se le interrumpe a mitad de un lote
+        closeIntake();
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+
+        //Lo que siga en cola (el escritor no alcanzo a terminar) se guarda como no entregado en vez de perderse
+        List<PendingMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.warn("El escritor de mensajes no termino a tiempo; quedan {} mensajes en cola", remaining.size());
+            deadLetter(remaining);
+        }
+    }
+
+    private void closeIntake() {
+        intake.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            intake.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean enqueue(Message message, Long userId, String doctorEmail) {
+        PendingMessage pending = new PendingMessage(
+                message.getFirstname(),
+                message.getLastname(),
+                message.getEmail(),
+                message.getReason(),
+                message.getMessage(),
+                new Timestamp(System.currentTimeMillis()),
+                userId,
+                doctorEmail
+        );
+        intake.readLock().lock();
+        try {
+            return running && queue.offer(pending);
+        } finally {
+            intake.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int pending() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (running) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                //Esperamos hasta completar el lote o hasta que venza el intervalo
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                //Una interrupcion se trata como apagado: se cierra la entrada y se vacia lo pendiente
+                log.warn("El escritor de mensajes fue interrumpido; se vacia la cola y se deja de aceptar mensajes");
+                interrupted = true;
+                closeIntake();
+            }
+        }
+
+        //Vaciado final al apagar
+        queue.drainTo(batch);
+        while (!batch.isEmpty()) {
+            int end = Math.min(batchSize, batch.size());
+            List<PendingMessage> chunk = new ArrayList<>(batch.subList(0, end));
+            batch.subList(0, end).clear();
+            flush(chunk);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            long backoff = retryBackoffMs;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    insert(batch);
+                    break;
+                } catch (RuntimeException e) {
+                    //Al apagar no se espera: se pasa directo al guardado fila por fila
+                    if (attempt >= retryAttempts || !running) {
+                        log.warn("No se pudo guardar un lote de {} mensajes tras {} intentos: {}", batch.size(), attempt, e.getMessage());
+                        flushRowByRow(batch);
+                        return;
+                    }
+                    sleep(backoff);
+                    backoff = Math.min(backoff * 2, TimeUnit.SECONDS.toMillis(5));
+                }
+            }
+
+            //Solo avisamos a los doctores una vez que el lote quedo confirmado
+            for (PendingMessage pending : batch) {
+                notifySafely(pending);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    //Aisla las filas que hacen fallar el lote (p. ej. un doctor eliminado mientras el mensaje estaba en cola)
+    private void flushRowByRow(List<PendingMessage> batch) {
+        List<PendingMessage> failed = new ArrayList<>();
+        for (PendingMessage pending : batch) {
+            try {
+                insert(List.of(pending));
+                notifySafely(pending);
+            } catch (RuntimeException e) {
+                failed.add(pending);
+            }
+        }
+        if (!failed.isEmpty()) {
+            deadLetter(failed);
+        }
+    }
+
+    private void deadLetter(List<PendingMessage> failed) {
+        Path file = Paths.get(deadLetterFile).toAbsolutePath();
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (PendingMessage pending : failed) {
+                lines.append(objectMapper.writeValueAsString(pending)).append('\n');
+            }
+            Files.writeString(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.error("{} mensajes no se pudieron guardar y quedaron en {}", failed.size(), file);
+        } catch (IOException | RuntimeException e) {
+            //Ultimo recurso: el contenido queda en el log para no perderlo
+            log.error("No se pudo escribir {}; mensajes no guardados: {}", file, failed, e);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void insert(List<PendingMessage> batch) {
+        Map<Long, Integer> unreadByUser = new HashMap<>();
+        batch.forEach(pending -> unreadByUser.merge(pending.userId(), 1, Integer::sum));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                ps.setString(1, pending.firstname());
+                ps.setString(2, pending.lastname());
+                ps.setString(3, pending.email());
+                ps.setString(4, pending.reason());
+                ps.setString(5, pending.message());
+                ps.setTimestamp(6, pending.createdAt());
+                ps.setLong(7, pending.userId());
+            });
+            jdbcTemplate.batchUpdate(UNREAD_SQL, new ArrayList<>(unreadByUser.entrySet()), unreadByUser.size(), (ps, entry) -> {
+                ps.setInt(1, entry.getValue());
+                ps.setLong(2, entry.getKey());
+            });
+        });
+    }
+
+    private void notifySafely(PendingMessage pending) {
+        try {
+            messageNotifier.notifyNewMessage(pending.doctorEmail(),
+                    new MessageNotification(pending.firstname(), pending.lastname(), pending.reason(), pending.createdAt()));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo notificar al doctor {}: {}", pending.userId(), e.getMessage());
+        }
+    }
+
+    private record PendingMessage(String firstname, String lastname, String email, String reason, String message,
+                                  Timestamp createdAt, Long userId, String doctorEmail) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.models.MessageNotification;
+import com.doctors.backend.services.MessageNotifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MessageNotifierImpl implements MessageNotifier {
+
+    public static final String DESTINATION = "/queue/messages";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void notifyNewMessage(String doctorEmail, MessageNotification notification) {
+        if (doctorEmail == null) {
+            return;
+        }
+        //Si el doctor no tiene una sesion abierta el broker simplemente descarta el mensaje
+        messagingTemplate.convertAndSendToUser(doctorEmail, DESTINATION, notification);
+    }
+}
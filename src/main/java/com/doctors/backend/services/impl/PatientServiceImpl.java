@@ -3,9 +3,15 @@ package com.doctors.backend.services.impl;
 import com.doctors.backend.entity.User;
 import com.doctors.backend.repositories.RoleRepository;
 import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BoundedPasswordEncoder;
+import com.doctors.backend.security.JwtTokenCache;
+import com.doctors.backend.security.TokenVersionService;
+import com.doctors.backend.services.DoctorSearchService;
+import com.doctors.backend.services.EmailAlreadyRegisteredException;
+import com.doctors.backend.services.EmailRegistry;
 import com.doctors.backend.services.PatientService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -18,7 +24,19 @@ public class PatientServiceImpl implements PatientService {
     private RoleRepository roleRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenCache tokenCache;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private DoctorSearchService searchService;
+
+    @Autowired
+    private EmailRegistry emailRegistry;
 
     @Override
     public User getUser(Long id){
@@ -28,36 +46,63 @@ public class PatientServiceImpl implements PatientService {
 
     @Override
     public User registerPatient(User patient) {
+        if (emailRegistry.isRegistered(patient.getEmail())) {
+            throw new EmailAlreadyRegisteredException();
+        }
         User newPatient = new User();
 
         newPatient.setFirstname(patient.getFirstname());
         newPatient.setLastname(patient.getLastname());
         newPatient.setEmail(patient.getEmail());
-        newPatient.setPassword(passwordEncoder.encode(patient.getPassword()));
+        newPatient.setPassword(passwordEncoder.encode(patient.getPassword(), "ROLE_PATIENT"));
         newPatient.setPhoto(patient.getPhoto());
         newPatient.setRoles(roleRepository.findByName("ROLE_PATIENT"));
+        newPatient.setUserType(User.TYPE_PATIENT);
 
-        return userRepository.save(newPatient);
+        User savedPatient = saveUnique(newPatient);
+        emailRegistry.add(savedPatient.getEmail());
+        return savedPatient;
     }
 
     @Override
     public Boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return emailRegistry.isRegistered(email);
     }
 
     @Override
     public User updateUser(User user, Long id){
         User updatedUser = userRepository.findById(id).orElse(null);
+        String previousEmail = updatedUser.getEmail();
+        tokenCache.evictUser(previousEmail);
 
         updatedUser.setFirstname(user.getFirstname());
         updatedUser.setLastname(user.getLastname());
         updatedUser.setEmail(user.getEmail());
 
-        return userRepository.save(updatedUser);
+        User savedUser = saveUnique(updatedUser);
+        emailRegistry.add(savedUser.getEmail());
+        if (previousEmail != null && !previousEmail.equals(savedUser.getEmail())) {
+            tokenVersionService.revoke(id, previousEmail);
+        }
+        return savedUser;
+    }
+
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (EmailAlreadyRegisteredException.isEmailConflict(e)) {
+                throw new EmailAlreadyRegisteredException();
+            }
+            throw e;
+        }
     }
 
     @Override
     public void deletePatient(Long id) {
+        String email = userRepository.findEmailById(id);
         userRepository.deleteById(id);
+        tokenVersionService.forget(id, email);
+        searchService.remove(id);
     }
 }
@@ -0,0 +1,253 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.services.MediaStore;
+import com.doctors.backend.services.ThumbnailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera versiones reducidas de las fotos de perfil en un pool acotado, fuera del hilo de la peticion.
+ * Si la cola esta llena la tarea se descarta y queda registrado: la imagen original se sigue sirviendo y la
+ * siguiente peticion de esa miniatura vuelve a encolarla. El backfill ocupa como maximo la mitad de la cola,
+ * asi las subidas nuevas siguen teniendo espacio mientras corre.
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Value("${media.thumbnail-sizes:96,256,512}")
+    private int[] sizes;
+
+    @Value("${media.thumbnail-workers:2}")
+    private int workers;
+
+    @Value("${media.thumbnail-queue:200}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore backfillSlots;
+    private int backfillPermits;
+    //Imagenes encoladas o en proceso, para no encolar la misma dos veces
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        Arrays.sort(sizes);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    GenerateTask task = (GenerateTask) runnable;
+                    log.warn("Cola de miniaturas llena, se descarta {}; se regenerara en la proxima peticion.", task.imageName);
+                    task.done();
+                });
+        backfillPermits = Math.max(1, queueCapacity / 2);
+        backfillSlots = new Semaphore(backfillPermits);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void generateAsync(String imageName) {
+        if (imageName == null || imageName.isEmpty()) {
+            return;
+        }
+        if (pending.add(imageName)) {
+            executor.execute(new GenerateTask(imageName, null));
+        }
+    }
+
+    @Override
+    public Path findVariant(String imageName, int size) {
+        //Elegimos la variante mas pequeña que no sea menor a lo pedido
+        for (int candidate : sizes) {
+            if (candidate >= size) {
+                Path variant = mediaStore.resolveVariant(imageName, candidate);
+                if (Files.isRegularFile(variant)) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int backfill() {
+        Path root = mediaStore.resolve(".");
+        int submitted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (formatOf(name) != null && !name.endsWith(".tmp") && pending.add(name)) {
+                    //Bloquea hasta que termine alguna tarea del backfill en vez de descartar
+                    backfillSlots.acquire();
+                    executor.execute(new GenerateTask(name, backfillSlots::release));
+                    submitted++;
+                }
+            }
+            //Esperamos a que terminen todas las tareas encoladas por el backfill
+            backfillSlots.acquire(backfillPermits);
+            backfillSlots.release(backfillPermits);
+        } catch (IOException e) {
+            log.warn("No se pudo recorrer el directorio de imagenes: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return submitted;
+    }
+
+    private void generate(String imageName) {
+        String format = formatOf(imageName);
+        if (format == null) {
+            return;
+        }
+
+        try {
+            Path source = mediaStore.resolve(imageName);
+            BufferedImage original = null;
+
+            for (int size : sizes) {
+                Path target = mediaStore.resolveVariant(imageName, size);
+                if (Files.exists(target)) {
+                    continue;
+                }
+                if (original == null) {
+                    //Las imagenes mas chicas que la variante no se agrandan; basta leer el encabezado para saberlo
+                    if (largestSide(source) <= size) {
+                        return;
+                    }
+                    original = ImageIO.read(source.toFile());
+                    if (original == null) {
+                        return;
+                    }
+                }
+                //No agrandamos imagenes: si ya es mas chica que la variante se sirve la original
+                if (Math.max(original.getWidth(), original.getHeight()) <= size) {
+                    return;
+                }
+                write(resize(original, size, format), format, target);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo generar la miniatura de {}: {}", imageName, e.getMessage());
+        }
+    }
+
+    private int largestSide(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return Integer.MAX_VALUE;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return Math.max(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage original, int size, String format) {
+        double scale = (double) size / Math.max(original.getWidth(), original.getHeight());
+        int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+        int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (type == BufferedImage.TYPE_INT_RGB) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            ImageIO.write(image, format, temp.toFile());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private final class GenerateTask implements Runnable {
+
+        private final String imageName;
+        private final Runnable onDone;
+
+        private GenerateTask(String imageName, Runnable onDone) {
+            this.imageName = imageName;
+            this.onDone = onDone;
+        }
+
+        @Override
+        public void run() {
+            try {
+                generate(imageName);
+            } finally {
+                done();
+            }
+        }
+
+        private void done() {
+            pending.remove(imageName);
+            if (onDone != null) {
+                onDone.run();
+            }
+        }
+    }
+
+    private String formatOf(String imageName) {
+        String lower = imageName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".png")) {
+            return "png";
+        }
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) {
+            return "jpg";
+        }
+        return null;
+    }
+}
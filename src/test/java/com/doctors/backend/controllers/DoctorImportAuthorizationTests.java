@@ -0,0 +1,79 @@
+package com.doctors.backend.controllers;
+
+import com.doctors.backend.models.DoctorImportReport;
+import com.doctors.backend.services.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+//Verifica la regla de @PreAuthorize sobre la importacion masiva; Spring Security traduce AccessDeniedException a 403
+@SpringJUnitConfig(DoctorImportAuthorizationTests.MethodSecurity.class)
+class DoctorImportAuthorizationTests {
+
+    @Configuration
+    @EnableMethodSecurity
+    @Import(DoctorController.class)
+    static class MethodSecurity {
+    }
+
+    @Autowired
+    private DoctorController doctorController;
+
+    @MockBean
+    private DoctorService doctorService;
+
+    @MockBean
+    private MediaStore mediaStore;
+
+    @MockBean
+    private ImageService imageService;
+
+    @MockBean
+    private ThumbnailService thumbnailService;
+
+    @MockBean
+    private MessageIngestionService messageIngestionService;
+
+    @MockBean
+    private DoctorSearchService searchService;
+
+    @MockBean
+    private DoctorImportService importService;
+
+    @Test
+    @WithMockUser(username = "paciente@test.cl", authorities = "ROLE_PATIENT")
+    void patientCannotImportDoctors() throws IOException {
+        assertThrows(AccessDeniedException.class, () -> doctorController.importDoctors(csvRequest(), () -> "paciente@test.cl"));
+        verify(importService, never()).importCsv(any());
+    }
+
+    @Test
+    @WithMockUser(username = "doctor@test.cl", authorities = "ROLE_DOCTOR")
+    void doctorCanImportDoctors() throws IOException {
+        when(importService.importCsv(any())).thenReturn(new DoctorImportReport());
+
+        assertEquals(200, doctorController.importDoctors(csvRequest(), () -> "doctor@test.cl").getStatusCode().value());
+        verify(importService).importCsv(any());
+    }
+
+    private static MockHttpServletRequest csvRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/doctors/import");
+        request.setContentType("text/csv");
+        request.setContent("firstname,lastname,email,password\n".getBytes());
+        return request;
+    }
+}
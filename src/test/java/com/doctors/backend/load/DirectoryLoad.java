@@ -0,0 +1,79 @@
+package com.doctors.backend.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generador de carga minimo para comparar el modo de hilos de plataforma con el de hilos virtuales
+ * (spring.threads.virtual.enabled). No es un test: surefire no lo ejecuta. Con la aplicacion levantada:
+ *
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/test-classes com.doctors.backend.load.DirectoryLoad http://localhost:8080/api/doctors/directory/page/0 400 30
+ * </pre>
+ *
+ * Los argumentos son URL, clientes concurrentes y segundos. Imprime peticiones por segundo, errores y latencias
+ * p50/p99. Para detectar hilos fijados, levantar la aplicacion con el perfil virtual-threads (-Djdk.tracePinnedThreads=short).
+ */
+public class DirectoryLoad {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/doctors/directory/page/0");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        AtomicInteger errors = new AtomicInteger();
+        List<List<Long>> latencies = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            List<Long> own = new ArrayList<>();
+            latencies.add(own);
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    own.add(System.nanoTime() - start);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+        if (all.isEmpty()) {
+            System.out.println("Sin respuestas.");
+            return;
+        }
+        System.out.printf("%s con %d clientes durante %ds%n", uri, clients, seconds);
+        System.out.printf("peticiones: %d (%.1f/s), errores: %d%n", all.size(), all.size() / (double) seconds, errors.get());
+        System.out.printf("p50: %.1f ms, p99: %.1f ms%n", percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        int index = Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
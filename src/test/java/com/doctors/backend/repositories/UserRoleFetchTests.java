@@ -0,0 +1,127 @@
+package com.doctors.backend.repositories;
+
+import com.doctors.backend.entity.Role;
+import com.doctors.backend.entity.Specialty;
+import com.doctors.backend.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=false")
+class UserRoleFetchTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role doctorRole = new Role();
+        doctorRole.setName("ROLE_DOCTOR");
+        entityManager.persist(doctorRole);
+
+        Role patientRole = new Role();
+        patientRole.setName("ROLE_PATIENT");
+        entityManager.persist(patientRole);
+
+        Specialty cardiology = new Specialty();
+        cardiology.setName("Cardiología");
+        entityManager.persist(cardiology);
+
+        for (int i = 0; i < 30; i++) {
+            User doctor = user("doctor" + i + "@test.cl", User.TYPE_DOCTOR, doctorRole);
+            doctor.setSpecialty(cardiology);
+            entityManager.persist(doctor);
+            entityManager.persist(user("patient" + i + "@test.cl", User.TYPE_PATIENT, patientRole));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void registerLooksUpRoleWithoutLoadingItsUsers() {
+        List<Role> roles = roleRepository.findByName("ROLE_DOCTOR");
+        userRepository.saveAndFlush(user("nuevo@test.cl", User.TYPE_DOCTOR, roles.get(0)));
+
+        //select del rol + insert del usuario + insert en user_roles
+        assertEquals(1, statistics.getEntityLoadCount(), "solo se debe cargar el rol");
+        assertTrue(statistics.getPrepareStatementCount() <= 3, "sentencias: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void loginLoadsUserAndRolesInOneStatement() {
+        User user = userRepository.findByNaturalEmail("doctor7@test.cl");
+        assertEquals(1, user.getAuthorities().size());
+
+        //El natural id se resuelve y la entidad se carga con sus roles en una sola sentencia
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void doctorListingDoesNotScaleWithUsers() {
+        List<User> doctors = userRepository.findByUserType(User.TYPE_DOCTOR);
+        assertEquals(30, doctors.size());
+        doctors.forEach(doctor -> assertEquals(1, doctor.getRoles().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        statistics.clear();
+
+        userRepository.findByUserType(User.TYPE_DOCTOR, PageRequest.of(0, 9)).forEach(doctor -> doctor.getRoles().size());
+        //pagina + count + un lote de roles
+        assertTrue(statistics.getPrepareStatementCount() <= 3, "sentencias: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void bulkInsertIsBatched() {
+        Role role = roleRepository.findByName("ROLE_DOCTOR").get(0);
+        List<User> doctors = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            doctors.add(user("bulk" + i + "@test.cl", User.TYPE_DOCTOR, role));
+        }
+        statistics.clear();
+
+        userRepository.saveAll(doctors);
+        userRepository.flush();
+
+        //Con IDENTITY eran 400 (un insert por usuario y uno por fila de user_roles); con secuencia pooled-lo se agrupan en lotes
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "sentencias: " + statistics.getPrepareStatementCount());
+    }
+
+    private User user(String email, String type, Role role) {
+        User user = new User();
+        user.setFirstname("Nombre");
+        user.setLastname("Apellido");
+        user.setEmail(email);
+        user.setPassword("x");
+        user.setUserType(type);
+        user.setRoles(List.of(role));
+        return user;
+    }
+}
@@ -0,0 +1,52 @@
+package com.doctors.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void hasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(1 << 17, 5);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@test.cl");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@test.cl"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("otro" + i + "@test.cl")) {
+                falsePositives++;
+            }
+        }
+        //Teorico con 10k valores, 131072 bits y 5 hashes: ~0,3%
+        assertTrue(falsePositives < 1_000, "falsos positivos: " + falsePositives);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(1 << 18, 3);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int offset = t;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < 20_000; i += 4) {
+                    filter.add("jti-" + i);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        //4096 palabras para 60k bits: los hilos escriben a menudo en la misma palabra y el CAS no debe pisarlos,
+        //pero el filtro queda lejos de saturarse, asi que un bit perdido se notaria como falso negativo
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filter.mightContain("jti-" + i), "se perdio jti-" + i);
+        }
+    }
+}
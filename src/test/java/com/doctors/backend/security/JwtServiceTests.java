@@ -0,0 +1,87 @@
+package com.doctors.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTests {
+
+    private static final String SECRET_1 = "5a990397b91197c662cd8fd140c6864552730adf6c32e070ead2f69df84e3bc3";
+    private static final String SECRET_2 = "0f1e2d3c4b5a69788796a5b4c3d2e1f00f1e2d3c4b5a69788796a5b4c3d2e1f0";
+
+    private static final UserDetails USER = User.withUsername("ana@test.cl").password("x").authorities("ROLE_PATIENT").build();
+
+    @Test
+    void refusesToStartWithoutSecret() {
+        JwtService jwtService = jwtService("k1:", "k1");
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, jwtService::init);
+        assertTrue(error.getMessage().contains("JWT_SECRET"));
+    }
+
+    @Test
+    void verifiesTokensSignedWithPreviousKeyAfterRotation() {
+        JwtService before = jwtService("k1:" + SECRET_1, "k1");
+        before.init();
+        String token = before.generateToken(USER);
+
+        JwtService after = jwtService("k1:" + SECRET_1 + ",k2:" + SECRET_2, "k2");
+        after.init();
+
+        assertEquals("ana@test.cl", after.extractUsername(token));
+    }
+
+    @Test
+    void cachedParserIsFasterThanBuildingOnePerCall() {
+        JwtService jwtService = jwtService("k1:" + SECRET_1, "k1");
+        jwtService.init();
+        String token = jwtService.generateToken(USER);
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_1));
+
+        int iterations = 2_000;
+        //Calentamiento de ambos caminos antes de medir
+        perCall(token, key, iterations);
+        cached(jwtService, token, iterations);
+
+        long perCallNanos = perCall(token, key, iterations);
+        long cachedNanos = cached(jwtService, token, iterations);
+        System.out.printf("JWT parse x%d: parser por llamada %.1f ms, parser cacheado %.1f ms%n",
+                iterations, perCallNanos / 1e6, cachedNanos / 1e6);
+
+        assertTrue(cachedNanos < perCallNanos, "el parser cacheado no fue mas rapido");
+    }
+
+    private static long perCall(String token, SecretKey key, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long cached(JwtService jwtService, String token, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(jwtService.extractAllClaims(token).getSubject());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static JwtService jwtService(String keys, String activeKid) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "tokenVersionService", Mockito.mock(TokenVersionService.class));
+        ReflectionTestUtils.setField(jwtService, "keys", keys);
+        ReflectionTestUtils.setField(jwtService, "activeKid", activeKid);
+        ReflectionTestUtils.setField(jwtService, "accessTtlMs", 900_000L);
+        return jwtService;
+    }
+}
@@ -0,0 +1,78 @@
+package com.doctors.backend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTests {
+
+    private LoginRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new LoginRateLimiter();
+        //Ventana de una hora: la rotacion no interviene durante el test
+        ReflectionTestUtils.setField(rateLimiter, "windowMs", 3_600_000L);
+        ReflectionTestUtils.setField(rateLimiter, "maxPerEmail", 5);
+        ReflectionTestUtils.setField(rateLimiter, "maxPerIp", 20);
+    }
+
+    @Test
+    void blocksEmailAfterLimitIgnoringCase() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(i % 2 == 0 ? "ana@test.cl" : "ANA@test.cl", null));
+        }
+        assertFalse(rateLimiter.tryAcquire("Ana@Test.cl", null));
+        assertTrue(rateLimiter.tryAcquire("otra@test.cl", null));
+    }
+
+    @Test
+    void blocksIpAcrossDifferentEmails() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(rateLimiter.tryAcquire("user" + i + "@test.cl", "10.0.0.1"));
+        }
+        assertFalse(rateLimiter.tryAcquire("user20@test.cl", "10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire("user20@test.cl", "10.0.0.2"));
+    }
+
+    @Test
+    void neverUnderestimatesUnderManyDistinctKeys() {
+        //Muchas claves distintas llenan el sketch de colisiones; el limite de una clave se debe seguir cumpliendo
+        for (int i = 0; i < 50_000; i++) {
+            rateLimiter.tryAcquire("flood" + i + "@test.cl", null);
+        }
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (rateLimiter.tryAcquire("victima@test.cl", null)) {
+                allowed++;
+            }
+        }
+        assertTrue(allowed <= 5, "se permitieron " + allowed + " intentos");
+    }
+
+    @Test
+    void concurrentAttemptsAllowExactlyTheLimit() throws InterruptedException {
+        AtomicInteger allowed = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (rateLimiter.tryAcquire("ana@test.cl", null)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(5, allowed.get());
+    }
+}
@@ -0,0 +1,80 @@
+package com.doctors.backend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenStoreTests {
+
+    private static final long HOUR = 3_600_000L;
+
+    private RevokedTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RevokedTokenStore();
+        ReflectionTestUtils.setField(store, "bits", 1 << 16);
+    }
+
+    @Test
+    void reportsOnlyRevokedIds() {
+        store.revoke("jti-1", System.currentTimeMillis() + HOUR);
+
+        assertTrue(store.isRevoked("jti-1"));
+        assertFalse(store.isRevoked("jti-2"));
+        assertFalse(store.isRevoked(null));
+    }
+
+    @Test
+    void ignoresTokensThatAlreadyExpired() {
+        store.revoke("jti-1", System.currentTimeMillis() - 1);
+
+        assertFalse(store.isRevoked("jti-1"));
+        assertTrue(revoked().isEmpty());
+    }
+
+    @Test
+    void rebuildDropsExpiredEntriesAndKeepsLiveOnes() throws InterruptedException {
+        store.revoke("short", System.currentTimeMillis() + 50);
+        store.revoke("long", System.currentTimeMillis() + HOUR);
+        Thread.sleep(100);
+
+        store.rebuild();
+
+        assertFalse(store.isRevoked("short"));
+        assertTrue(store.isRevoked("long"));
+        assertEquals(1, revoked().size());
+    }
+
+    @Test
+    void revocationsDuringRebuildAreNotLost() throws InterruptedException {
+        AtomicBoolean revoking = new AtomicBoolean(true);
+        Thread rebuilder = new Thread(() -> {
+            while (revoking.get()) {
+                store.rebuild();
+            }
+        });
+        rebuilder.start();
+
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        for (int i = 0; i < 20_000; i++) {
+            store.revoke("jti-" + i, expiresAt);
+        }
+        revoking.set(false);
+        rebuilder.join();
+
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(store.isRevoked("jti-" + i), "se perdio jti-" + i);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> revoked() {
+        return (Map<String, Long>) ReflectionTestUtils.getField(store, "revoked");
+    }
+}
@@ -0,0 +1,67 @@
+package com.doctors.backend.security;
+
+import com.doctors.backend.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class TokenVersionServiceTests {
+
+    private UserRepository userRepository;
+    private JwtTokenCache tokenCache;
+    private TokenVersionService tokenVersionService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        tokenCache = Mockito.mock(JwtTokenCache.class);
+        tokenVersionService = new TokenVersionService();
+        ReflectionTestUtils.setField(tokenVersionService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tokenVersionService, "tokenCache", tokenCache);
+        ReflectionTestUtils.setField(tokenVersionService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revokeForgetsVersionOnlyAfterCommit() {
+        when(userRepository.findTokenVersion(1L)).thenReturn(0);
+        assertEquals(0, tokenVersionService.currentVersion(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        tokenVersionService.revoke(1L, "ana@test.cl");
+
+        //Antes de confirmar, la base aun devuelve la version anterior: no se debe releer ni desalojar nada
+        when(userRepository.findTokenVersion(1L)).thenReturn(1);
+        assertEquals(0, tokenVersionService.currentVersion(1L));
+        verify(tokenCache, never()).evictUser("ana@test.cl");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(1, tokenVersionService.currentVersion(1L));
+        verify(tokenCache).evictUser("ana@test.cl");
+    }
+
+    @Test
+    void forgetOutsideTransactionEvictsImmediately() {
+        when(userRepository.findTokenVersion(1L)).thenReturn(0, 1);
+        assertEquals(0, tokenVersionService.currentVersion(1L));
+
+        tokenVersionService.forget(1L, "ana@test.cl");
+
+        assertEquals(1, tokenVersionService.currentVersion(1L));
+        verify(tokenCache).evictUser("ana@test.cl");
+    }
+}
@@ -0,0 +1,163 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Appointment;
+import com.doctors.backend.entity.AvailabilityRule;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.models.FreeSlot;
+import com.doctors.backend.repositories.AppointmentRepository;
+import com.doctors.backend.repositories.AvailabilityRuleRepository;
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.services.SlotUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceImplTests {
+
+    private static final String ZONE = "America/Santiago";
+    private static final Long DOCTOR_ID = 1L;
+    private static final Long PATIENT_ID = 2L;
+
+    private AppointmentServiceImpl appointmentService;
+    private LocalDateTime slot;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = Mockito.mock(AppointmentRepository.class);
+        AvailabilityRuleRepository availabilityRuleRepository = Mockito.mock(AvailabilityRuleRepository.class);
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+
+        User doctor = new User();
+        doctor.setId(DOCTOR_ID);
+        when(userRepository.findDoctorSummaries()).thenReturn(List.of(
+                new DoctorSummary(DOCTOR_ID, "Ana", "Rojas", 10L, "Cardiología", null, null)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(userRepository.getReferenceById(DOCTOR_ID)).thenReturn(doctor);
+        when(availabilityRuleRepository.findAll()).thenReturn(everyMorning(doctor));
+        when(appointmentRepository.findBookedSlots(any(), any())).thenReturn(List.of());
+        when(appointmentRepository.saveAndFlush(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        appointmentService = new AppointmentServiceImpl();
+        ReflectionTestUtils.setField(appointmentService, "appointmentRepository", appointmentRepository);
+        ReflectionTestUtils.setField(appointmentService, "availabilityRuleRepository", availabilityRuleRepository);
+        ReflectionTestUtils.setField(appointmentService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(appointmentService, "slotMinutes", 30);
+        ReflectionTestUtils.setField(appointmentService, "horizonDays", 60);
+        ReflectionTestUtils.setField(appointmentService, "zone", ZONE);
+        appointmentService.init();
+        appointmentService.rebuild();
+
+        slot = LocalDate.now(ZoneId.of(ZONE)).plusDays(1).atTime(10, 0);
+    }
+
+    @Test
+    void concurrentBookingsOfSameSlotHaveExactlyOneWinner() throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(2);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger unavailable = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+
+        Thread[] patients = new Thread[2];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    inTransaction(true, () -> appointmentService.book(DOCTOR_ID, PATIENT_ID, slot, "Control"));
+                    booked.incrementAndGet();
+                } catch (SlotUnavailableException e) {
+                    unavailable.incrementAndGet();
+                } catch (Throwable e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+            });
+            patients[i].start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread patient : patients) {
+            patient.join();
+        }
+
+        assertTrue(unexpected.isEmpty(), () -> "errores inesperados: " + unexpected);
+        assertEquals(1, booked.get());
+        assertEquals(1, unavailable.get());
+        assertFalse(freeSlots().contains(slot));
+    }
+
+    @Test
+    void rolledBackBookingReleasesSlot() {
+        assertTrue(freeSlots().contains(slot));
+
+        inTransaction(false, () -> appointmentService.book(DOCTOR_ID, PATIENT_ID, slot, "Control"));
+
+        assertTrue(freeSlots().contains(slot));
+    }
+
+    @Test
+    void rejectsSlotsOutsideAvailability() {
+        LocalDateTime evening = slot.withHour(20);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> inTransaction(true, () -> appointmentService.book(DOCTOR_ID, PATIENT_ID, evening, "Control")));
+        assertFalse(freeSlots().contains(evening));
+    }
+
+    private List<LocalDateTime> freeSlots() {
+        return appointmentService.findFreeSlots(10L, null, slot.toLocalDate().atStartOfDay(), slot.toLocalDate().plusDays(1).atStartOfDay(), 100)
+                .stream().map(FreeSlot::getStartsAt).toList();
+    }
+
+    //Simula la transaccion de Spring: registra las sincronizaciones del hilo y las completa segun el resultado
+    private static void inTransaction(boolean commit, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            status = TransactionSynchronization.STATUS_ROLLED_BACK;
+            throw e;
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCompletion(status);
+            }
+        }
+    }
+
+    private static List<AvailabilityRule> everyMorning(User doctor) {
+        List<AvailabilityRule> rules = new ArrayList<>();
+        for (int day = 1; day <= 7; day++) {
+            AvailabilityRule rule = new AvailabilityRule();
+            rule.setDayOfWeek(day);
+            rule.setStartTime(LocalTime.of(9, 0));
+            rule.setEndTime(LocalTime.of(13, 0));
+            rule.setDoctor(doctor);
+            rules.add(rule);
+        }
+        return rules;
+    }
+}
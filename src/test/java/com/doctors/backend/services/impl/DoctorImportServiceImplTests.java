@@ -0,0 +1,138 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Role;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorImportReport;
+import com.doctors.backend.models.ImportRowError;
+import com.doctors.backend.repositories.RoleRepository;
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.security.BoundedPasswordEncoder;
+import com.doctors.backend.services.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DoctorImportServiceImplTests {
+
+    private UserRepository userRepository;
+    private DoctorSearchService searchService;
+    private DoctorImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+        DoctorService doctorService = Mockito.mock(DoctorService.class);
+        BoundedPasswordEncoder passwordEncoder = Mockito.mock(BoundedPasswordEncoder.class);
+        searchService = Mockito.mock(DoctorSearchService.class);
+
+        Role doctorRole = new Role();
+        doctorRole.setName("ROLE_DOCTOR");
+        when(roleRepository.findByName("ROLE_DOCTOR")).thenReturn(List.of(doctorRole));
+        when(doctorService.findAllSpecialties()).thenReturn(List.of());
+        when(passwordEncoder.encodeAll(anyList(), eq("ROLE_DOCTOR")))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), "hash"));
+
+        importService = new DoctorImportServiceImpl();
+        ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(importService, "roleRepository", roleRepository);
+        ReflectionTestUtils.setField(importService, "doctorService", doctorService);
+        ReflectionTestUtils.setField(importService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(importService, "emailRegistry", Mockito.mock(EmailRegistry.class));
+        ReflectionTestUtils.setField(importService, "searchService", searchService);
+        ReflectionTestUtils.setField(importService, "appointmentService", Mockito.mock(AppointmentService.class));
+        ReflectionTestUtils.setField(importService, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(importService, "entityManager", Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 100);
+        ReflectionTestUtils.setField(importService, "maxRows", 5000);
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRowAndReportsEachConstraint() throws IOException {
+        //El lote completo falla; fila por fila solo fallan el email tomado y el telefono demasiado largo
+        when(userRepository.saveAll(anyList())).thenThrow(violation("uk_users_email"));
+        AtomicLong ids = new AtomicLong();
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User doctor = invocation.getArgument(0);
+            if (doctor.getEmail().equals("tomado@test.cl")) {
+                throw violation("uk_users_email");
+            }
+            if (doctor.getEmail().equals("largo@test.cl")) {
+                throw new DataIntegrityViolationException("phone", new SQLException("Data too long for column 'phone'"));
+            }
+            doctor.setId(ids.incrementAndGet());
+            return doctor;
+        });
+
+        DoctorImportReport report = importService.importNdjson(ndjson(
+                row("Andrea", "uno@test.cl"),
+                row("Benito", "tomado@test.cl"),
+                row("Camila", "largo@test.cl"),
+                row("Daniel", "dos@test.cl")));
+
+        assertEquals(4, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+
+        ImportRowError taken = report.getErrors().get(0);
+        assertEquals(2, taken.getRow());
+        assertEquals(List.of("El email ya está en uso."), taken.getErrors());
+
+        ImportRowError tooLong = report.getErrors().get(1);
+        assertEquals(3, tooLong.getRow());
+        assertTrue(tooLong.getErrors().get(0).contains("Data too long"), tooLong.getErrors().get(0));
+
+        //Solo las filas guardadas se agregan al indice de busqueda
+        verify(searchService, times(2)).index(any(User.class));
+    }
+
+    @Test
+    void invalidRowsAreReportedWithoutReachingDatabase() throws IOException {
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        DoctorImportReport report = importService.importNdjson(ndjson(
+                row("Andrea", "uno@test.cl"),
+                row("Andrea", "no-es-email"),
+                row("Andrea", "UNO@test.cl")));
+
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of("El email está repetido en el archivo."), report.getErrors().get(1).getErrors());
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("insert",
+                new ConstraintViolationException("Duplicate entry", new SQLException("Duplicate entry"), constraint));
+    }
+
+    private static String row(String firstname, String email) {
+        return "{\"firstname\":\"" + firstname + "\",\"lastname\":\"Rojas\",\"email\":\"" + email + "\",\"password\":\"secreto123\"}";
+    }
+
+    private static ByteArrayInputStream ndjson(String... rows) {
+        return new ByteArrayInputStream(String.join("\n", rows).getBytes(StandardCharsets.UTF_8));
+    }
+}
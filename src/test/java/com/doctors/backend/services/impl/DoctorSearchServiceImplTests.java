@@ -0,0 +1,136 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Specialty;
+import com.doctors.backend.entity.User;
+import com.doctors.backend.models.DoctorSummary;
+import com.doctors.backend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class DoctorSearchServiceImplTests {
+
+    private UserRepository userRepository;
+    private DoctorSearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        searchService = new DoctorSearchServiceImpl();
+        ReflectionTestUtils.setField(searchService, "userRepository", userRepository);
+    }
+
+    @Test
+    void searchMatchesPrefixesWithoutAccents() {
+        when(userRepository.findDoctorSummaries()).thenReturn(List.of(
+                new DoctorSummary(1L, "José", "Núñez", 10L, "Cardiología", null, null),
+                new DoctorSummary(2L, "Josefa", "Pérez", 20L, "Pediatría", null, null)));
+        searchService.rebuild();
+
+        assertEquals(List.of(1L), ids(searchService.search("nunez card", 10)));
+        assertEquals(List.of(1L, 2L), ids(searchService.search("JOS", 10)));
+        assertTrue(searchService.search("nunez pediatria", 10).isEmpty());
+    }
+
+    @Test
+    void reindexReplacesPreviousTerms() {
+        when(userRepository.findDoctorSummaries()).thenReturn(List.of(
+                new DoctorSummary(1L, "José", "Núñez", 10L, "Cardiología", null, null)));
+        searchService.rebuild();
+
+        searchService.index(doctor(1L, "José", "Soto", 10L, "Cardiología"));
+
+        assertTrue(searchService.search("nunez", 10).isEmpty());
+        assertEquals(List.of(1L), ids(searchService.search("soto", 10)));
+    }
+
+    @Test
+    void rebuildKeepsDoctorsIndexedWhileLoading() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch indexed = new CountDownLatch(1);
+        when(userRepository.findDoctorSummaries()).thenAnswer(invocation -> {
+            loading.countDown();
+            indexed.await();
+            return List.of(new DoctorSummary(1L, "José", "Núñez", 10L, "Cardiología", null, null));
+        });
+
+        Thread rebuild = new Thread(searchService::rebuild);
+        rebuild.start();
+        loading.await();
+        //El doctor se registra despues de la lectura: no debe perderse al publicar el indice nuevo
+        searchService.index(doctor(2L, "Ana", "Rojas", 10L, "Cardiología"));
+        indexed.countDown();
+        rebuild.join();
+
+        assertEquals(List.of(1L, 2L), ids(searchService.search("cardio", 10)));
+    }
+
+    @Test
+    void specialtyCountsStayExactUnderConcurrentReindex() throws InterruptedException {
+        when(userRepository.findDoctorSummaries()).thenReturn(List.of());
+        searchService.rebuild();
+
+        int doctors = 20;
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                //Cada hilo mueve a los mismos doctores entre dos especialidades
+                for (int round = 0; round < 500; round++) {
+                    for (long id = 1; id <= doctors; id++) {
+                        long specialty = (id + round) % 2 == 0 ? 10L : 20L;
+                        searchService.index(doctor(id, "Ana", "Rojas", specialty, specialty == 10L ? "Cardiología" : "Pediatría"));
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        Map<Long, Integer> counts = searchService.countBySpecialty();
+        assertEquals(doctors, counts.values().stream().mapToInt(Integer::intValue).sum());
+        assertEquals(doctors, searchService.search("rojas", 100).size());
+    }
+
+    @Test
+    void removingLastDoctorDropsSpecialtyCount() {
+        when(userRepository.findDoctorSummaries()).thenReturn(List.of(
+                new DoctorSummary(1L, "José", "Núñez", 10L, "Cardiología", null, null),
+                new DoctorSummary(2L, "Ana", "Rojas", 10L, "Cardiología", null, null)));
+        searchService.rebuild();
+        assertEquals(Map.of(10L, 2), searchService.countBySpecialty());
+
+        searchService.remove(1L);
+        searchService.remove(2L);
+
+        assertTrue(searchService.countBySpecialty().isEmpty());
+        assertTrue(searchService.search("cardiologia", 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<DoctorSummary> doctors) {
+        return doctors.stream().map(DoctorSummary::getId).sorted().toList();
+    }
+
+    static User doctor(Long id, String firstname, String lastname, Long specialtyId, String specialtyName) {
+        Specialty specialty = new Specialty();
+        specialty.setId(specialtyId);
+        specialty.setName(specialtyName);
+        User doctor = new User();
+        doctor.setId(id);
+        doctor.setFirstname(firstname);
+        doctor.setLastname(lastname);
+        doctor.setUserType(User.TYPE_DOCTOR);
+        doctor.setSpecialty(specialty);
+        return doctor;
+    }
+}
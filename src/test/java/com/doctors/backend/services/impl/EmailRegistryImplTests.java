@@ -0,0 +1,80 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmailRegistryImplTests {
+
+    private UserRepository userRepository;
+    private EmailRegistryImpl emailRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        emailRegistry = new EmailRegistryImpl();
+        ReflectionTestUtils.setField(emailRegistry, "userRepository", userRepository);
+        ReflectionTestUtils.setField(emailRegistry, "bits", 1 << 16);
+    }
+
+    @Test
+    void unknownEmailIsAnsweredWithoutQueryingDatabase() {
+        when(userRepository.findAllEmails()).thenReturn(List.of("ana@test.cl"));
+        emailRegistry.rebuild();
+
+        assertFalse(emailRegistry.isRegistered("nadie@test.cl"));
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void possibleMatchIsConfirmedWithDatabaseIgnoringCase() {
+        when(userRepository.findAllEmails()).thenReturn(List.of("Ana@Test.cl"));
+        when(userRepository.existsByEmail(" ana@test.CL ")).thenReturn(true);
+        emailRegistry.rebuild();
+
+        assertTrue(emailRegistry.isRegistered(" ana@test.CL "));
+        verify(userRepository).existsByEmail(" ana@test.CL ");
+    }
+
+    @Test
+    void queriesDatabaseUntilFirstBuild() {
+        when(userRepository.existsByEmail("ana@test.cl")).thenReturn(true);
+
+        assertTrue(emailRegistry.isRegistered("ana@test.cl"));
+    }
+
+    @Test
+    void emailAddedDuringRebuildIsKept() throws InterruptedException {
+        when(userRepository.findAllEmails()).thenReturn(List.of());
+        emailRegistry.rebuild();
+
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch added = new CountDownLatch(1);
+        when(userRepository.findAllEmails()).thenAnswer(invocation -> {
+            reading.countDown();
+            added.await();
+            return List.of();
+        });
+        when(userRepository.existsByEmail("nuevo@test.cl")).thenReturn(true);
+
+        Thread rebuild = new Thread(emailRegistry::rebuild);
+        rebuild.start();
+        reading.await();
+        //El registro se confirma despues de que la reconstruccion leyo la tabla
+        emailRegistry.add("nuevo@test.cl");
+        added.countDown();
+        rebuild.join();
+
+        assertTrue(emailRegistry.isRegistered("nuevo@test.cl"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.services.MediaStore;
+import com.doctors.backend.services.ThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageServiceImplTests {
+
+    private static final String NAME = "abc.png";
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @TempDir
+    Path uploads;
+
+    private ThumbnailService thumbnailService;
+    private ImageServiceImpl imageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MediaStore mediaStore = Mockito.mock(MediaStore.class);
+        thumbnailService = Mockito.mock(ThumbnailService.class);
+        when(mediaStore.resolve(NAME)).thenReturn(Files.write(uploads.resolve(NAME), CONTENT));
+        when(mediaStore.resolve("abc.html")).thenReturn(Files.write(uploads.resolve("abc.html"), CONTENT));
+
+        imageService = new ImageServiceImpl();
+        ReflectionTestUtils.setField(imageService, "mediaStore", mediaStore);
+        ReflectionTestUtils.setField(imageService, "thumbnailService", thumbnailService);
+        imageService.loadDefaultImages();
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(NAME, request());
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("\"abc.png-10\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("image/png", response.getContentType());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void servesSingleRange() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void servesSuffixRange() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    void rejectsRangePastEndOfFile() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"otra-10\"");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+    }
+
+    @Test
+    void answersNotModifiedForMatchingEtag() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc.png-10\"");
+
+        MockHttpServletResponse response = serve(NAME, request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void unknownTypesAreDownloadedNotRendered() throws IOException {
+        MockHttpServletResponse response = serve("abc.html", request());
+
+        assertEquals("application/octet-stream", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).startsWith("attachment"));
+    }
+
+    @Test
+    void missingThumbnailIsRequeuedAndBrieflyCached() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageService.serve(NAME, 96, "user_icon.png", request(), response);
+
+        assertArrayEquals(CONTENT, response.getContentAsByteArray());
+        assertEquals("public, max-age=60", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        verify(thumbnailService).generateAsync(NAME);
+    }
+
+    private MockHttpServletResponse serve(String name, MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageService.serve(name, null, "user_icon.png", request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/images");
+    }
+}
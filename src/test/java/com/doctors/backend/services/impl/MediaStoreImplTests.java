@@ -0,0 +1,101 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.repositories.UserRepository;
+import com.doctors.backend.services.UnsupportedImageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MediaStoreImplTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
+    @TempDir
+    Path uploads;
+
+    private UserRepository userRepository;
+    private MediaStoreImpl mediaStore;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        mediaStore = new MediaStoreImpl();
+        ReflectionTestUtils.setField(mediaStore, "userRepository", userRepository);
+        ReflectionTestUtils.setField(mediaStore, "uploadsDir", uploads.toString());
+    }
+
+    @Test
+    void identicalUploadsShareFileUntilLastRelease() throws IOException {
+        when(userRepository.countPhotoReferences()).thenReturn(List.of());
+        mediaStore.afterSingletonsInstantiated();
+
+        String first = mediaStore.store(png());
+        String second = mediaStore.store(png());
+        assertEquals(first, second);
+        assertTrue(first.endsWith(".png"));
+        mediaStore.retain(first);
+        mediaStore.retain(second);
+
+        mediaStore.release(first);
+        assertTrue(Files.exists(mediaStore.resolve(first)));
+
+        mediaStore.release(second);
+        assertFalse(Files.exists(mediaStore.resolve(first)));
+    }
+
+    @Test
+    void discardedUploadKeepsFileReferencedAtStartup() throws IOException {
+        String name = mediaStore.store(png());
+        mediaStore.discard(name);
+        assertFalse(Files.exists(mediaStore.resolve(name)));
+
+        //Una fila existente ya usa el archivo: descartar una subida nueva no debe borrarlo
+        List<Object[]> rows = List.<Object[]>of(new Object[]{name, 1L});
+        when(userRepository.countPhotoReferences()).thenReturn(rows);
+        mediaStore = new MediaStoreImpl();
+        ReflectionTestUtils.setField(mediaStore, "userRepository", userRepository);
+        ReflectionTestUtils.setField(mediaStore, "uploadsDir", uploads.toString());
+        mediaStore.afterSingletonsInstantiated();
+
+        mediaStore.store(png());
+        mediaStore.discard(name);
+        assertTrue(Files.exists(mediaStore.resolve(name)));
+    }
+
+    @Test
+    void releaseIgnoresUntrackedNames() throws IOException {
+        when(userRepository.countPhotoReferences()).thenReturn(List.of());
+        mediaStore.afterSingletonsInstantiated();
+        Path legacy = Files.write(uploads.resolve("legacy.png"), PNG);
+
+        mediaStore.release("legacy.png");
+
+        assertTrue(Files.exists(legacy));
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImage() throws IOException {
+        MockMultipartFile html = new MockMultipartFile("file", "foto.png", "image/png", "<html></html>".getBytes());
+
+        assertThrows(UnsupportedImageException.class, () -> mediaStore.store(html));
+        try (Stream<Path> files = Files.list(uploads)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static MockMultipartFile png() {
+        return new MockMultipartFile("file", "foto.png", "image/png", PNG);
+    }
+}
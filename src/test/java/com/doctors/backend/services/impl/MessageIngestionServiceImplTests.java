@@ -0,0 +1,99 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.entity.Message;
+import com.doctors.backend.services.MessageNotifier;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+class MessageIngestionServiceImplTests {
+
+    private static final String INSERT_PREFIX = "insert into messages";
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger inserted = new AtomicInteger();
+    private MessageIngestionServiceImpl ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(startsWith(INSERT_PREFIX), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    inserted.addAndGet(invocation.<Collection<?>>getArgument(1).size());
+                    return new int[0][];
+                });
+
+        ingestionService = new MessageIngestionServiceImpl();
+        ReflectionTestUtils.setField(ingestionService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(ingestionService, "transactionTemplate", new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(ingestionService, "messageNotifier", Mockito.mock(MessageNotifier.class));
+        ReflectionTestUtils.setField(ingestionService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(ingestionService, "queueCapacity", 100_000);
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 50);
+        ReflectionTestUtils.setField(ingestionService, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(ingestionService, "retryAttempts", 1);
+        ReflectionTestUtils.setField(ingestionService, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(ingestionService, "deadLetterFile", directory.resolve("dead-letter.ndjson").toString());
+        ingestionService.start();
+    }
+
+    @Test
+    void everyAcceptedMessageIsWrittenWhenStoppingUnderLoad() throws InterruptedException {
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                started.countDown();
+                //Se sigue encolando mientras el servicio se apaga: cada 202 (true) debe terminar en la base
+                for (int i = 0; i < 20_000; i++) {
+                    if (ingestionService.enqueue(message(), 1L, "doctor@test.cl")) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producers[t].start();
+        }
+        started.await();
+        Thread.sleep(5);
+        ingestionService.stop();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertFalse(ingestionService.enqueue(message(), 1L, "doctor@test.cl"));
+        assertEquals(accepted.get(), inserted.get());
+        assertEquals(0, ingestionService.pending());
+        assertFalse(Files.exists(directory.resolve("dead-letter.ndjson")));
+    }
+
+    private static Message message() {
+        Message message = new Message();
+        message.setFirstname("Ana");
+        message.setLastname("Rojas");
+        message.setEmail("ana@test.cl");
+        message.setReason("Consulta");
+        message.setMessage("Hola");
+        return message;
+    }
+}
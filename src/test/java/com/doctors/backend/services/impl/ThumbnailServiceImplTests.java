@@ -0,0 +1,60 @@
+package com.doctors.backend.services.impl;
+
+import com.doctors.backend.services.MediaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class ThumbnailServiceImplTests {
+
+    @TempDir
+    Path uploads;
+
+    private ThumbnailServiceImpl thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        MediaStore mediaStore = Mockito.mock(MediaStore.class);
+        when(mediaStore.resolve(anyString())).thenAnswer(invocation -> uploads.resolve(invocation.<String>getArgument(0)).normalize());
+        when(mediaStore.resolveVariant(anyString(), anyInt())).thenAnswer(invocation ->
+                uploads.resolve("variants").resolve(String.valueOf(invocation.<Integer>getArgument(1))).resolve(invocation.<String>getArgument(0)));
+
+        thumbnailService = new ThumbnailServiceImpl();
+        ReflectionTestUtils.setField(thumbnailService, "mediaStore", mediaStore);
+        ReflectionTestUtils.setField(thumbnailService, "sizes", new int[]{96});
+        ReflectionTestUtils.setField(thumbnailService, "workers", 1);
+        ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 2);
+        thumbnailService.init();
+    }
+
+    @Test
+    void backfillWaitsForEveryImageWithoutDroppingTasks() throws IOException {
+        int images = 6;
+        for (int i = 0; i < images; i++) {
+            ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", uploads.resolve("img" + i + ".png").toFile());
+        }
+
+        //La cola admite 2 tareas y el backfill solo usa 1: sin espera bloqueante la mayoria se descartaria
+        assertEquals(images, thumbnailService.backfill());
+
+        for (int i = 0; i < images; i++) {
+            Path variant = thumbnailService.findVariant("img" + i + ".png", 96);
+            assertTrue(variant != null && Files.isRegularFile(variant), "falta la miniatura de img" + i);
+        }
+        thumbnailService.shutdown();
+    }
+}